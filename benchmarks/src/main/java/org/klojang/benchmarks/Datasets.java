@@ -0,0 +1,262 @@
+package org.klojang.benchmarks;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import org.klojang.db.Row;
+
+/**
+ * Generates the templates and source data for the benchmarks. All data is derived
+ * from a fixed seed, so every run of every benchmark sees exactly the same input.
+ *
+ * @author Ayco Holleman
+ */
+public final class Datasets {
+
+  /**
+   * The seed for all random data.
+   */
+  public static final long SEED = 42L;
+
+  /**
+   * A typical page: a handful of variables plus a table with a row for each
+   * employee of a {@link Department}.
+   */
+  public static final String PAGE = "<!DOCTYPE html>\n"
+      + "<html>\n"
+      + "<head>\n"
+      + "  <meta charset=\"UTF-8\">\n"
+      + "  <title>~%title%</title>\n"
+      + "  <link rel=\"stylesheet\" href=\"/css/main.css\">\n"
+      + "</head>\n"
+      + "<body>\n"
+      + "  <h1>~%name%</h1>\n"
+      + "  <p class=\"manager\">Managed by ~%manager%</p>\n"
+      + "  <table class=\"employees\">\n"
+      + "    <thead>\n"
+      + "      <tr><th>Id</th><th>First name</th><th>Last name</th><th>Email</th>"
+      + "<th>Title</th><th>Salary</th></tr>\n"
+      + "    </thead>\n"
+      + "    <tbody>~%%begin:employees%\n"
+      + "      <tr>\n"
+      + "        <td class=\"id\">~%id%</td>\n"
+      + "        <td>~%firstName%</td>\n"
+      + "        <td>~%lastName%</td>\n"
+      + "        <td><a href=\"mailto:~%email%\">~%email%</a></td>\n"
+      + "        <td>~%title%</td>\n"
+      + "        <td class=\"number\">~%salary%</td>\n"
+      + "      </tr>~%%end:employees%\n"
+      + "    </tbody>\n"
+      + "  </table>\n"
+      + "  <footer>~%footer%</footer>\n"
+      + "</body>\n"
+      + "</html>\n";
+
+  private static final String[] FIRST_NAMES = {"John", "Mary", "Mark", "Linda", "Peter",
+      "Susan", "David", "Karen", "José", "Ana", "Jan", "Els"};
+
+  private static final String[] LAST_NAMES = {"Smith", "Jones", "Brown", "Jansen", "de Vries",
+      "van den Berg", "García", "Müller", "O'Brien", "Bakker"};
+
+  private static final String[] TITLES = {"Engineer", "Senior Engineer", "Manager",
+      "Analyst", "R&D <Lead>", "Intern"};
+
+  private static final String LOREM = "Lorem ipsum dolor sit amet, consectetur adipiscing "
+      + "elit, sed do eiusmod tempor incididunt ut labore et dolore magna aliqua. Ut enim "
+      + "ad minim veniam, quis nostrud exercitation ullamco laboris nisi ut aliquip ex ea "
+      + "commodo consequat. Duis aute irure dolor in reprehenderit in voluptate velit esse "
+      + "cillum dolore eu fugiat nulla pariatur.";
+
+  private Datasets() {}
+
+  /**
+   * Generates a department with the specified number of employees.
+   *
+   * @param employees The number of employees
+   * @return A department
+   */
+  public static Department department(int employees) {
+    Department dept = new Department();
+    dept.setTitle("Employees of R&D");
+    dept.setName("Research & Development");
+    dept.setManager("Mary O'Brien");
+    dept.setFooter("Generated by Klojang");
+    dept.setEmployees(employees(employees));
+    return dept;
+  }
+
+  /**
+   * Generates the specified number of employees.
+   *
+   * @param count The number of employees
+   * @return The employees
+   */
+  public static List<Employee> employees(int count) {
+    Random random = new Random(SEED);
+    List<Employee> employees = new ArrayList<>(count);
+    for (int i = 0; i < count; ++i) {
+      Employee emp = new Employee();
+      emp.setId(i + 1);
+      emp.setFirstName(FIRST_NAMES[random.nextInt(FIRST_NAMES.length)]);
+      emp.setLastName(LAST_NAMES[random.nextInt(LAST_NAMES.length)]);
+      emp.setEmail("employee" + (i + 1) + "@example.com");
+      emp.setTitle(TITLES[random.nextInt(TITLES.length)]);
+      emp.setSalary(2000 + random.nextInt(800000) / 100.0);
+      employees.add(emp);
+    }
+    return employees;
+  }
+
+  /**
+   * Converts a department into a {@code Map}, with the employees converted into
+   * maps as well.
+   *
+   * @param dept The department
+   * @return A {@code Map} with the same data as the department
+   */
+  public static Map<String, Object> toMap(Department dept) {
+    Map<String, Object> map = new LinkedHashMap<>();
+    map.put("title", dept.getTitle());
+    map.put("name", dept.getName());
+    map.put("manager", dept.getManager());
+    map.put("footer", dept.getFooter());
+    List<Map<String, Object>> emps = new ArrayList<>(dept.getEmployees().size());
+    for (Employee emp : dept.getEmployees()) {
+      emps.add(toMap(emp));
+    }
+    map.put("employees", emps);
+    return map;
+  }
+
+  /**
+   * Converts an employee into a {@code Map}.
+   *
+   * @param emp The employee
+   * @return A {@code Map} with the same data as the employee
+   */
+  public static Map<String, Object> toMap(Employee emp) {
+    Map<String, Object> map = new LinkedHashMap<>();
+    map.put("id", emp.getId());
+    map.put("firstName", emp.getFirstName());
+    map.put("lastName", emp.getLastName());
+    map.put("email", emp.getEmail());
+    map.put("title", emp.getTitle());
+    map.put("salary", emp.getSalary());
+    return map;
+  }
+
+  /**
+   * Converts a department into a {@link Row}, with the employees converted into
+   * rows as well, as though they had been read from a database.
+   *
+   * @param dept The department
+   * @return A {@code Row} with the same data as the department
+   */
+  public static Row toRow(Department dept) {
+    Map<String, Object> map = toMap(dept);
+    List<Row> emps = new ArrayList<>(dept.getEmployees().size());
+    for (Employee emp : dept.getEmployees()) {
+      emps.add(new Row(toMap(emp)));
+    }
+    map.put("employees", emps);
+    return new Row(map);
+  }
+
+  /**
+   * Generates the source code of a template consisting of the specified number of
+   * sections, each containing a paragraph of static text, a variable and a nested
+   * template with three variables.
+   *
+   * @param sections The number of sections
+   * @return The source code of the template
+   */
+  public static String generateTemplate(int sections) {
+    StringBuilder sb = new StringBuilder(sections * 600 + 64);
+    sb.append("<html>\n<body>\n");
+    for (int i = 0; i < sections; ++i) {
+      sb.append("<section id=\"s").append(i).append("\">\n")
+          .append("  <h2>~%heading").append(i).append("%</h2>\n")
+          .append("  <p>").append(LOREM).append("</p>\n")
+          .append("  <ul>~%%begin:list").append(i).append("%\n")
+          .append("    <li><a href=\"~%url%\">~%label%</a> (~%count%)</li>")
+          .append("~%%end:list").append(i).append("%\n")
+          .append("  </ul>\n")
+          .append("</section>\n");
+    }
+    sb.append("</body>\n</html>\n");
+    return sb.toString();
+  }
+
+  /**
+   * Generates the source code of a template with the specified nesting depth. Each
+   * level contains a variable ({@code v}) and a nested template
+   * ({@code level1}, {@code level2}, etc.), except the deepest level, which only
+   * contains the variable.
+   *
+   * @param depth The nesting depth
+   * @return The source code of the template
+   */
+  public static String generateDeepTemplate(int depth) {
+    StringBuilder sb = new StringBuilder();
+    for (int i = 0; i < depth; ++i) {
+      sb.append("<div class=\"level").append(i).append("\">~%v%")
+          .append("~%%begin:level").append(i + 1).append('%');
+    }
+    sb.append("<span>~%v%</span>");
+    for (int i = depth; i > 0; --i) {
+      sb.append("~%%end:level").append(i).append("%</div>");
+    }
+    return sb.toString();
+  }
+
+  /**
+   * Generates the data for a template generated by
+   * {@link #generateDeepTemplate(int)}.
+   *
+   * @param depth The nesting depth
+   * @param fanOut The number of elements at each level
+   * @return The data for the template
+   */
+  public static Map<String, Object> generateDeepData(int depth, int fanOut) {
+    return generateDeepData(0, depth, fanOut);
+  }
+
+  private static Map<String, Object> generateDeepData(int level, int depth, int fanOut) {
+    Map<String, Object> map = new LinkedHashMap<>();
+    map.put("v", "level " + level);
+    if (level < depth) {
+      List<Map<String, Object>> children = new ArrayList<>(fanOut);
+      for (int i = 0; i < fanOut; ++i) {
+        children.add(generateDeepData(level + 1, depth, fanOut));
+      }
+      map.put("level" + (level + 1), children);
+    }
+    return map;
+  }
+
+  /**
+   * Generates a string of the specified length. If {@code markup} is
+   * {@code true}, about one in eight characters will be a character that has to be
+   * escaped in HTML, JavaScript or URLs.
+   *
+   * @param length The length of the string
+   * @param markup Whether to include characters that need escaping
+   * @return The string
+   */
+  public static String text(int length, boolean markup) {
+    String special = "<>&\"'/\\ \né€";
+    Random random = new Random(SEED);
+    StringBuilder sb = new StringBuilder(length);
+    for (int i = 0; i < length; ++i) {
+      if (markup && random.nextInt(8) == 0) {
+        sb.append(special.charAt(random.nextInt(special.length())));
+      } else {
+        sb.append(LOREM.charAt(random.nextInt(LOREM.length())));
+      }
+    }
+    return sb.toString();
+  }
+
+}
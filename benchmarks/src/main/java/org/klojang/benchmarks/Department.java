@@ -0,0 +1,59 @@
+package org.klojang.benchmarks;
+
+import java.util.List;
+
+/**
+ * JavaBean used as source data for the benchmarks. Populates the
+ * {@link Datasets#PAGE page template}.
+ *
+ * @author Ayco Holleman
+ */
+public class Department {
+
+  private String title;
+  private String name;
+  private String manager;
+  private String footer;
+  private List<Employee> employees;
+
+  public String getTitle() {
+    return title;
+  }
+
+  public void setTitle(String title) {
+    this.title = title;
+  }
+
+  public String getName() {
+    return name;
+  }
+
+  public void setName(String name) {
+    this.name = name;
+  }
+
+  public String getManager() {
+    return manager;
+  }
+
+  public void setManager(String manager) {
+    this.manager = manager;
+  }
+
+  public String getFooter() {
+    return footer;
+  }
+
+  public void setFooter(String footer) {
+    this.footer = footer;
+  }
+
+  public List<Employee> getEmployees() {
+    return employees;
+  }
+
+  public void setEmployees(List<Employee> employees) {
+    this.employees = employees;
+  }
+
+}
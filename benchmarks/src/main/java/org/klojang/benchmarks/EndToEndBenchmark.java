@@ -0,0 +1,84 @@
+package org.klojang.benchmarks;
+
+import java.io.ByteArrayOutputStream;
+import java.util.concurrent.TimeUnit;
+import org.klojang.template.CompiledLayout;
+import org.klojang.template.ParseException;
+import org.klojang.template.RenderException;
+import org.klojang.template.Template;
+import org.klojang.template.TemplateBinder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares the various ways of turning a {@link Department} into a page, from
+ * source data to bytes: a render session populated through {@code insert}, a
+ * {@link TemplateBinder}, a {@link CompiledLayout}, and, for partial page updates,
+ * rendering just the table rows using {@code Template.renderFragment}.
+ *
+ * @author Ayco Holleman
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = {"-Xms1g", "-Xmx1g"})
+@State(Scope.Thread)
+public class EndToEndBenchmark {
+
+  @Param({"10", "1000"})
+  public int employees;
+
+  private Template template;
+  private TemplateBinder<Department> binder;
+  private CompiledLayout layout;
+  private Department department;
+  private ByteArrayOutputStream out;
+
+  @Setup
+  public void setup() throws ParseException, RenderException {
+    template = Template.fromString(Datasets.PAGE);
+    binder = template.bind(Department.class);
+    layout = CompiledLayout.compile(template);
+    department = Datasets.department(employees);
+    out = new ByteArrayOutputStream();
+  }
+
+  @Benchmark
+  public int renderSession() throws RenderException {
+    out.reset();
+    template.newRenderSession().insert(department).render(out);
+    return out.size();
+  }
+
+  @Benchmark
+  public int templateBinder() throws RenderException {
+    out.reset();
+    binder.render(department, out);
+    return out.size();
+  }
+
+  @Benchmark
+  public int compiledLayout() throws RenderException {
+    out.reset();
+    layout.render(department, out);
+    return out.size();
+  }
+
+  @Benchmark
+  public int fragment() throws RenderException {
+    out.reset();
+    template.renderFragment("employees", department.getEmployees(), out);
+    return out.size();
+  }
+
+}
@@ -0,0 +1,72 @@
+package org.klojang.benchmarks;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+import org.klojang.template.ParseException;
+import org.klojang.template.Template;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures parsing a page that includes a header and a footer that have already
+ * been parsed and cached. Included templates share their text with the cached
+ * template, so with the GC profiler attached, the number of bytes allocated per
+ * operation ({@code gc.alloc.rate.norm}) should not grow with the size of the
+ * header and footer.
+ *
+ * @author Ayco Holleman
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = {"-Xms1g", "-Xmx1g"})
+@State(Scope.Benchmark)
+public class IncludeBenchmark {
+
+  @Param({"2", "200"})
+  public int headerSections;
+
+  private Path dir;
+  private String page;
+
+  @Setup
+  public void setup() throws IOException, ParseException {
+    dir = Files.createTempDirectory("klojang-benchmark");
+    Path header = dir.resolve("header.html");
+    Path footer = dir.resolve("footer.html");
+    Files.writeString(header, Datasets.generateTemplate(headerSections));
+    Files.writeString(footer, Datasets.generateTemplate(headerSections));
+    page = "~%%include:pageHeader:" + header + "%"
+        + Datasets.PAGE
+        + "~%%include:pageFooter:" + footer + "%";
+    Template.fromString(page);
+  }
+
+  @TearDown
+  public void tearDown() throws IOException {
+    try (Stream<Path> files = Files.walk(dir)) {
+      files.sorted(Comparator.reverseOrder()).forEach(f -> f.toFile().delete());
+    }
+  }
+
+  @Benchmark
+  public Template parse() throws ParseException {
+    return Template.fromString(page);
+  }
+
+}
@@ -0,0 +1,92 @@
+package org.klojang.benchmarks;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.klojang.template.FragmentCache;
+import org.klojang.template.ParseException;
+import org.klojang.template.RenderException;
+import org.klojang.template.RenderSession;
+import org.klojang.template.Template;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import static org.klojang.template.AccessorRegistry.STANDARD_ACCESSORS;
+import static org.klojang.template.StringifierRegistry.STANDARD_STRINGIFIERS;
+
+/**
+ * Compares the columnar storage of the repetitions of a nested template that has no
+ * nested templates of its own (the employee rows of the {@link Datasets#PAGE page
+ * template}) with a child session per repetition. With {@code storage=sessions}
+ * the render session is given a {@link FragmentCache} whose key function never
+ * produces a key. Templates managed by a {@code FragmentCache} always get a child
+ * session per repetition, and since there are no keys nothing is ever cached, so
+ * this is the code path that was used for all nested templates before the columns
+ * were introduced. See {@link LeafColumnsFootprint} for the memory side of the
+ * comparison.
+ *
+ * @author Ayco Holleman
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = {"-Xms1g", "-Xmx1g"})
+@State(Scope.Benchmark)
+public class LeafColumnsBenchmark {
+
+  @Param({"columns", "sessions"})
+  public String storage;
+
+  @Param({"10", "1000", "10000"})
+  public int employees;
+
+  private Template template;
+  private FragmentCache cache;
+  private List<?> employeeList;
+
+  @Setup
+  public void setup() throws ParseException {
+    template = Template.fromString(Datasets.PAGE);
+    employeeList = Datasets.department(employees).getEmployees();
+    if (storage.equals("sessions")) {
+      cache = perRowSessions(template);
+    }
+  }
+
+  @Benchmark
+  public RenderSession populate() throws RenderException {
+    return newRenderSession(template, cache).populate("employees", employeeList);
+  }
+
+  @Benchmark
+  public String populateAndRender() throws RenderException {
+    return newRenderSession(template, cache).populate("employees", employeeList).render();
+  }
+
+  /**
+   * Returns a {@code FragmentCache} that makes the render session create a child
+   * session for each employee, without caching anything.
+   *
+   * @param template The page template
+   * @return A {@code FragmentCache} that never caches anything
+   */
+  static FragmentCache perRowSessions(Template template) {
+    return FragmentCache.configure().register(x -> null, template, "employees").freeze();
+  }
+
+  static RenderSession newRenderSession(Template template, FragmentCache cache) {
+    if (cache == null) {
+      return template.newRenderSession();
+    }
+    return template.newRenderSession(STANDARD_ACCESSORS, STANDARD_STRINGIFIERS, cache);
+  }
+
+}
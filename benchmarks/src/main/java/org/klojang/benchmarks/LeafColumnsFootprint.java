@@ -0,0 +1,68 @@
+package org.klojang.benchmarks;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.util.ArrayList;
+import java.util.List;
+import org.klojang.template.FragmentCache;
+import org.klojang.template.ParseException;
+import org.klojang.template.RenderException;
+import org.klojang.template.RenderSession;
+import org.klojang.template.Template;
+
+/**
+ * Reports the heap retained by render sessions for the {@link Datasets#PAGE page
+ * template} populated with a large number of employees, once with the employee rows
+ * stored in columns and once with a child session per row (see
+ * {@link LeafColumnsBenchmark}). The heap is measured for a number of sessions at
+ * once, to average out noise, and reported per session, along with the estimate
+ * returned by {@link RenderSession#estimateRetainedSize()}. Not a JMH benchmark, as
+ * it measures a footprint rather than a throughput. Run it with a fixed heap size
+ * for stable numbers:
+ *
+ * <blockquote><pre>{@code
+ * java -Xms1g -Xmx1g -cp target/benchmarks.jar org.klojang.benchmarks.LeafColumnsFootprint [employees] [sessions]
+ * }</pre></blockquote>
+ *
+ * @author Ayco Holleman
+ */
+public final class LeafColumnsFootprint {
+
+  public static void main(String[] args) throws Exception {
+    int employees = args.length > 0 ? Integer.parseInt(args[0]) : 1000;
+    int sessions = args.length > 1 ? Integer.parseInt(args[1]) : 100;
+    Template template = Template.fromString(Datasets.PAGE);
+    List<?> employeeList = Datasets.department(employees).getEmployees();
+    System.out.printf("%d sessions, %d employees each%n%n", sessions, employees);
+    System.out.printf("%-10s %20s %20s%n", "", "measured (KB)", "estimated (KB)");
+    report("columns", template, null, employeeList, sessions);
+    report("sessions", template, LeafColumnsBenchmark.perRowSessions(template),
+        employeeList, sessions);
+  }
+
+  private static void report(String label,
+      Template template,
+      FragmentCache cache,
+      List<?> employeeList,
+      int count) throws ParseException, RenderException {
+    long base = usedHeap();
+    List<RenderSession> sessions = new ArrayList<>(count);
+    for (int i = 0; i < count; ++i) {
+      sessions.add(LeafColumnsBenchmark.newRenderSession(template, cache)
+          .populate("employees", employeeList));
+    }
+    long measured = (usedHeap() - base) / count;
+    long estimated = sessions.get(0).estimateRetainedSize();
+    System.out.printf("%-10s %20d %20d%n", label, measured / 1024, estimated / 1024);
+    sessions.clear();
+  }
+
+  private static long usedHeap() {
+    MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+    for (int i = 0; i < 3; ++i) {
+      System.gc();
+    }
+    return memory.getHeapMemoryUsage().getUsed();
+  }
+
+}
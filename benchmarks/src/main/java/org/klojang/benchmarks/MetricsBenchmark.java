@@ -0,0 +1,66 @@
+package org.klojang.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+import org.klojang.template.MetricsRecorder;
+import org.klojang.template.ParseException;
+import org.klojang.template.RenderException;
+import org.klojang.template.RenderMetrics;
+import org.klojang.template.Template;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the overhead of the instrumentation: populating and rendering the
+ * {@link Datasets#PAGE page template} without a {@link RenderMetrics} listener and
+ * with a {@link MetricsRecorder}. Run with
+ * {@code -jvmArgs -XX:StartFlightRecording} to measure the overhead of the Flight
+ * Recorder events.
+ *
+ * @author Ayco Holleman
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = {"-Xms1g", "-Xmx1g"})
+@State(Scope.Benchmark)
+public class MetricsBenchmark {
+
+  @Param({"none", "recorder"})
+  public String listener;
+
+  private Template template;
+  private Department department;
+
+  @Setup
+  public void setup() throws ParseException {
+    template = Template.fromString(Datasets.PAGE);
+    department = Datasets.department(100);
+    if (listener.equals("recorder")) {
+      RenderMetrics.install(new MetricsRecorder());
+    }
+  }
+
+  @TearDown
+  public void tearDown() {
+    RenderMetrics.install(null);
+  }
+
+  @Benchmark
+  public int render() throws RenderException {
+    StringBuilder sb = new StringBuilder();
+    template.newRenderSession().insert(department).render(sb);
+    return sb.length();
+  }
+
+}
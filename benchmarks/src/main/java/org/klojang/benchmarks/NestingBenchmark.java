@@ -0,0 +1,53 @@
+package org.klojang.benchmarks;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.klojang.template.ParseException;
+import org.klojang.template.RenderException;
+import org.klojang.template.Template;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures populating and rendering deeply nested templates. Each level is
+ * repeated twice, so the deepest level is rendered 2<sup>depth</sup> times.
+ *
+ * @author Ayco Holleman
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = {"-Xms1g", "-Xmx1g"})
+@State(Scope.Benchmark)
+public class NestingBenchmark {
+
+  @Param({"2", "6", "10"})
+  public int depth;
+
+  private Template template;
+  private Map<String, Object> data;
+
+  @Setup
+  public void setup() throws ParseException {
+    template = Template.fromString(Datasets.generateDeepTemplate(depth));
+    data = Datasets.generateDeepData(depth, 2);
+  }
+
+  @Benchmark
+  public int render() throws RenderException {
+    StringBuilder sb = new StringBuilder();
+    template.newRenderSession().insert(data).render(sb);
+    return sb.length();
+  }
+
+}
@@ -0,0 +1,48 @@
+package org.klojang.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+import org.klojang.template.ParseException;
+import org.klojang.template.Template;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures parsing small (2 sections, ~1 KB), medium (50 sections, ~30 KB) and very
+ * large (5000 sections, ~3 MB) templates. Templates created from a string are never
+ * cached, so each invocation parses the template from scratch.
+ *
+ * @author Ayco Holleman
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = {"-Xms2g", "-Xmx2g"})
+@State(Scope.Benchmark)
+public class ParseBenchmark {
+
+  @Param({"2", "50", "5000"})
+  public int sections;
+
+  private String source;
+
+  @Setup
+  public void setup() {
+    source = Datasets.generateTemplate(sections);
+  }
+
+  @Benchmark
+  public Template parse() throws ParseException {
+    return Template.fromString(source);
+  }
+
+}
@@ -0,0 +1,113 @@
+package org.klojang.benchmarks;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.klojang.db.Row;
+import org.klojang.template.ParseException;
+import org.klojang.template.RenderException;
+import org.klojang.template.RenderSession;
+import org.klojang.template.Template;
+import org.klojang.template.VarSlot;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures populating (but not rendering) a render session for the
+ * {@link Datasets#PAGE page template}: setting variables by name and through
+ * {@link VarSlot slots}, and inserting and populating from JavaBeans, maps and
+ * rows.
+ *
+ * @author Ayco Holleman
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = {"-Xms1g", "-Xmx1g"})
+@State(Scope.Benchmark)
+public class PopulateBenchmark {
+
+  @State(Scope.Benchmark)
+  public static class Source {
+
+    @Param({"bean", "map", "row"})
+    public String type;
+
+    @Param({"10", "1000"})
+    public int employees;
+
+    Object department;
+    List<?> employeeList;
+
+    @Setup
+    public void setup() {
+      Department dept = Datasets.department(employees);
+      if (type.equals("bean")) {
+        department = dept;
+        employeeList = dept.getEmployees();
+      } else if (type.equals("map")) {
+        Map<String, Object> map = Datasets.toMap(dept);
+        department = map;
+        employeeList = (List<?>) map.get("employees");
+      } else {
+        Row row = Datasets.toRow(dept);
+        department = row;
+        employeeList = row.get("employees");
+      }
+    }
+  }
+
+  private Template template;
+  private VarSlot title;
+  private VarSlot name;
+  private VarSlot manager;
+  private VarSlot footer;
+
+  @Setup
+  public void setup() throws ParseException {
+    template = Template.fromString(Datasets.PAGE);
+    title = template.slot("title");
+    name = template.slot("name");
+    manager = template.slot("manager");
+    footer = template.slot("footer");
+  }
+
+  @Benchmark
+  public RenderSession setByName() throws RenderException {
+    return template.newRenderSession()
+        .set("title", "Employees of R&D")
+        .set("name", "Research & Development")
+        .set("manager", "Mary O'Brien")
+        .set("footer", "Generated by Klojang");
+  }
+
+  @Benchmark
+  public RenderSession setBySlot() throws RenderException {
+    return template.newRenderSession()
+        .set(title, "Employees of R&D")
+        .set(name, "Research & Development")
+        .set(manager, "Mary O'Brien")
+        .set(footer, "Generated by Klojang");
+  }
+
+  @Benchmark
+  public RenderSession insert(Source source) throws RenderException {
+    return template.newRenderSession().insert(source.department);
+  }
+
+  @Benchmark
+  public RenderSession populate(Source source) throws RenderException {
+    return template.newRenderSession().populate("employees", source.employeeList);
+  }
+
+}
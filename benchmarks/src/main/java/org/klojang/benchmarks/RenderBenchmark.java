@@ -0,0 +1,96 @@
+package org.klojang.benchmarks;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+import org.klojang.template.Parallelism;
+import org.klojang.template.ParseException;
+import org.klojang.template.RenderException;
+import org.klojang.template.Renderable;
+import org.klojang.template.Template;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures rendering an already populated render session for the
+ * {@link Datasets#PAGE page template}, with up to 100,000 employees (table rows):
+ * to a {@code StringBuilder}, to an {@code OutputStream}, in parallel, and
+ * compressed, either by the built-in gzip support or by wrapping the
+ * {@code OutputStream} into a {@code GZIPOutputStream}.
+ *
+ * @author Ayco Holleman
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = {"-Xms2g", "-Xmx2g"})
+@State(Scope.Thread)
+public class RenderBenchmark {
+
+  @Param({"10", "1000", "100000"})
+  public int employees;
+
+  private Renderable renderable;
+  private Renderable parallel;
+  private ByteArrayOutputStream out;
+
+  @Setup
+  public void setup() throws ParseException, RenderException {
+    Template template = Template.fromString(Datasets.PAGE);
+    Department dept = Datasets.department(employees);
+    renderable = template.newRenderSession().insert(dept).createRenderable();
+    parallel = template.newRenderSession()
+        .insert(dept)
+        .createRenderable(Parallelism.withThreshold(256));
+    out = new ByteArrayOutputStream();
+  }
+
+  @Benchmark
+  public int toStringBuilder() {
+    StringBuilder sb = new StringBuilder();
+    renderable.render(sb);
+    return sb.length();
+  }
+
+  @Benchmark
+  public int toOutputStream() {
+    out.reset();
+    renderable.render(out);
+    return out.size();
+  }
+
+  @Benchmark
+  public int toOutputStreamParallel() {
+    out.reset();
+    parallel.render(out);
+    return out.size();
+  }
+
+  @Benchmark
+  public int gzipBuiltIn() {
+    out.reset();
+    renderable.renderCompressed(out, 6);
+    return out.size();
+  }
+
+  @Benchmark
+  public int gzipOutputStream() throws IOException {
+    out.reset();
+    GZIPOutputStream gzip = new GZIPOutputStream(out, 8192);
+    renderable.render(gzip);
+    gzip.finish();
+    return out.size();
+  }
+
+}
@@ -0,0 +1,51 @@
+package org.klojang.benchmarks;
+
+import java.util.Collection;
+import org.openjdk.jmh.results.Result;
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the {@link ScalabilityBenchmark} with 1, 2, 4, ..., 64 threads and reports
+ * the throughput for each thread count, along with the speed-up relative to a
+ * single thread. The speed-up can only be expected to be linear up to the number
+ * of available cores. Optionally takes the name of the benchmark method to run
+ * ({@code parseAndRender} or {@code parse}) and the maximum number of threads:
+ *
+ * <blockquote><pre>{@code
+ * java -cp target/benchmarks.jar org.klojang.benchmarks.Scalability [method] [maxThreads]
+ * }</pre></blockquote>
+ *
+ * @author Ayco Holleman
+ */
+public final class Scalability {
+
+  public static void main(String[] args) throws Exception {
+    String method = args.length > 0 ? args[0] : "parseAndRender";
+    int maxThreads = args.length > 1 ? Integer.parseInt(args[1]) : 64;
+    String include = ScalabilityBenchmark.class.getName() + "." + method + "$";
+    StringBuilder report = new StringBuilder(512);
+    report.append(String.format("%s on %d cores%n", method,
+        Runtime.getRuntime().availableProcessors()));
+    report.append(String.format("%8s %16s %10s %10s%n", "threads", "ops/s", "speed-up",
+        "per core"));
+    double base = 0;
+    for (int threads = 1; threads <= maxThreads; threads *= 2) {
+      Collection<RunResult> results = new Runner(new OptionsBuilder()
+          .include(include)
+          .threads(threads)
+          .build()).run();
+      Result result = results.iterator().next().getPrimaryResult();
+      double score = result.getScore();
+      if (threads == 1) {
+        base = score;
+      }
+      report.append(String.format("%8d %16.0f %10.2f %10.2f%n", threads, score,
+          score / base, score / base / threads));
+    }
+    System.out.println();
+    System.out.print(report);
+  }
+
+}
@@ -0,0 +1,137 @@
+package org.klojang.benchmarks;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Stream;
+import org.klojang.template.ParseException;
+import org.klojang.template.RenderException;
+import org.klojang.template.Template;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the throughput of parsing and rendering templates when many threads do
+ * so at once. Run it through {@link Scalability}, which runs it with 1 up to 64
+ * threads and reports the speed-up, or directly with JMH's {@code -t} option.
+ *
+ * <p>{@code parseAndRender} retrieves one of {@value #FILES} templates from the
+ * template cache and renders it. The files are written anew for every iteration,
+ * so each iteration starts with all threads racing to parse the same files. The
+ * benchmark fails if two threads were handed different instances for the same
+ * file, or if any output differs from the output of a single-threaded render.
+ * {@code parse} parses templates from strings, containing variables with group
+ * prefixes, so it exercises the state the parser shares between threads.
+ *
+ * @author Ayco Holleman
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgs = {"-Xms2g", "-Xmx2g"})
+@State(Scope.Benchmark)
+public class ScalabilityBenchmark {
+
+  /**
+   * The number of distinct templates.
+   */
+  public static final int FILES = 64;
+
+  /**
+   * The next template to be used by a thread.
+   */
+  @State(Scope.Thread)
+  public static class Cursor {
+    private int next;
+
+    private int next() {
+      return next++ & (FILES - 1);
+    }
+  }
+
+  private Path dir;
+  private volatile String[] paths;
+  private String[] sources;
+  private int iteration;
+
+  private Department department;
+  private String expected;
+
+  // The instance handed out first for each path during the current iteration
+  private final Map<String, Template> resolved = new ConcurrentHashMap<>();
+  private final LongAdder errors = new LongAdder();
+
+  @Setup(Level.Trial)
+  public void setup() throws IOException, ParseException, RenderException {
+    dir = Files.createTempDirectory("klojang-benchmark");
+    department = Datasets.department(20);
+    expected = Template.fromString(Datasets.PAGE).newRenderSession().insert(department).render();
+    sources = new String[FILES];
+    for (int i = 0; i < FILES; ++i) {
+      sources[i] = "<p>~%html:title" + i + "%</p><script>var x = '~%js:name" + i + "%';</script>"
+          + Datasets.PAGE;
+    }
+  }
+
+  @Setup(Level.Iteration)
+  public void writeFiles() throws IOException {
+    String[] p = new String[FILES];
+    for (int i = 0; i < FILES; ++i) {
+      Path file = dir.resolve("page-" + iteration + "-" + i + ".html");
+      Files.writeString(file, Datasets.PAGE, StandardCharsets.UTF_8);
+      p[i] = file.toString();
+    }
+    ++iteration;
+    resolved.clear();
+    paths = p;
+  }
+
+  @TearDown(Level.Iteration)
+  public void verify() {
+    if (errors.sum() != 0) {
+      throw new IllegalStateException(errors.sum() + " lost updates or corrupt renders");
+    }
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() throws IOException {
+    try (Stream<Path> files = Files.walk(dir)) {
+      files.sorted(Comparator.reverseOrder()).forEach(f -> f.toFile().delete());
+    }
+  }
+
+  @Benchmark
+  public String parseAndRender(Cursor cursor) throws ParseException, RenderException {
+    String path = paths[cursor.next()];
+    Template template = Template.fromFile(path);
+    Template first = resolved.putIfAbsent(path, template);
+    String out = template.newRenderSession().insert(department).render();
+    if ((first != null && first != template) || !out.equals(expected)) {
+      errors.increment();
+    }
+    return out;
+  }
+
+  @Benchmark
+  public Template parse(Cursor cursor) throws ParseException {
+    return Template.fromString(sources[cursor.next()]);
+  }
+
+}
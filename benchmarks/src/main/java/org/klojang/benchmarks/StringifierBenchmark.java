@@ -0,0 +1,65 @@
+package org.klojang.benchmarks;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.klojang.template.RenderException;
+import org.klojang.template.Stringifier;
+import org.klojang.template.StringifierRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures each of the escaping stringifiers in {@link StringifierRegistry}, on
+ * short and long strings, with and without characters that need escaping.
+ *
+ * @author Ayco Holleman
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class StringifierBenchmark {
+
+  private static final Map<String, Stringifier> ESCAPERS = Map.of(
+      "html", StringifierRegistry.ESCAPE_HTML,
+      "js", StringifierRegistry.ESCAPE_JS,
+      "attr", StringifierRegistry.ESCAPE_ATTR,
+      "jsAttr", StringifierRegistry.ESCAPE_JS_ATTR,
+      "queryParam", StringifierRegistry.ESCAPE_QUERY_PARAM,
+      "path", StringifierRegistry.ESCAPE_PATH);
+
+  @Param({"html", "js", "attr", "jsAttr", "queryParam", "path"})
+  public String escaper;
+
+  @Param({"false", "true"})
+  public boolean markup;
+
+  @Param({"16", "1024"})
+  public int length;
+
+  private Stringifier stringifier;
+  private String text;
+
+  @Setup
+  public void setup() {
+    stringifier = ESCAPERS.get(escaper);
+    text = Datasets.text(length, markup);
+  }
+
+  @Benchmark
+  public String escape() throws RenderException {
+    return stringifier.toString(text);
+  }
+
+}
@@ -0,0 +1,65 @@
+package org.klojang.benchmarks;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+import org.klojang.template.ParseException;
+import org.klojang.template.Template;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures retrieving an already parsed template from the template cache, by a
+ * single thread and by eight threads at once.
+ *
+ * @author Ayco Holleman
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TemplateCacheBenchmark {
+
+  private Path file;
+  private String path;
+
+  @Setup
+  public void setup() throws IOException, ParseException {
+    file = Files.createTempFile("klojang-benchmark", ".html");
+    Files.writeString(file, Datasets.PAGE, StandardCharsets.UTF_8);
+    path = file.toString();
+    Template.fromFile(path);
+  }
+
+  @TearDown
+  public void tearDown() throws IOException {
+    Files.deleteIfExists(file);
+  }
+
+  @Benchmark
+  @Threads(1)
+  public Template hit() throws ParseException {
+    return Template.fromFile(path);
+  }
+
+  @Benchmark
+  @Threads(8)
+  public Template hitContended() throws ParseException {
+    return Template.fromFile(path);
+  }
+
+}
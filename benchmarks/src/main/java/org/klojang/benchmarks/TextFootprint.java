@@ -0,0 +1,78 @@
+package org.klojang.benchmarks;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import org.klojang.SysProp;
+import org.klojang.template.ParseException;
+import org.klojang.template.RenderException;
+import org.klojang.template.Template;
+
+/**
+ * Reports the heap retained by a large number of templates that share big chunks
+ * of static text (a navigation bar, a block of scripts, a footer), with and without
+ * {@link SysProp#DEDUPLICATE_TEXT text deduplication}. The retained heap is
+ * measured twice: right after parsing, and after each template has been rendered
+ * to a byte array once, which makes the templates encode their text as UTF-8. Not
+ * a JMH benchmark, as it measures a footprint rather than a throughput. Run it with
+ * a fixed heap size for stable numbers:
+ *
+ * <blockquote><pre>{@code
+ * java -Xms1g -Xmx1g -cp target/benchmarks.jar org.klojang.benchmarks.TextFootprint [templates]
+ * }</pre></blockquote>
+ *
+ * @author Ayco Holleman
+ */
+public final class TextFootprint {
+
+  private static final String HEADER = "<!DOCTYPE html>\n<html>\n<head>\n"
+      + "<script>" + Datasets.text(4000, false) + "</script>\n"
+      + "</head>\n<body>\n<nav>" + Datasets.text(2000, false) + "</nav>\n<h1>";
+
+  private static final String FOOTER = "</main>\n<footer>" + Datasets.text(1000, false)
+      + "</footer>\n</body>\n</html>\n";
+
+  public static void main(String[] args) throws Exception {
+    int count = args.length == 0 ? 500 : Integer.parseInt(args[0]);
+    System.out.printf("%d templates, %d characters of shared text each%n%n", count,
+        HEADER.length() + FOOTER.length());
+    System.out.printf("%-16s %16s %16s%n", "", "parsed (KB)", "rendered (KB)");
+    report("no deduplication", false, count);
+    report("deduplication", true, count);
+  }
+
+  private static void report(String label, boolean dedup, int count)
+      throws ParseException, RenderException {
+    System.setProperty(SysProp.DEDUPLICATE_TEXT.property(), String.valueOf(dedup));
+    long base = usedHeap();
+    List<Template> templates = new ArrayList<>(count);
+    for (int i = 0; i < count; ++i) {
+      templates.add(Template.fromString(page(i)));
+    }
+    long parsed = usedHeap() - base;
+    for (Template t : templates) {
+      t.newRenderSession()
+          .insert(Map.of("title", "Title", "content", "Content"))
+          .createIncrementalRenderer()
+          .render();
+    }
+    long rendered = usedHeap() - base;
+    System.out.printf("%-16s %16d %16d%n", label, parsed / 1024, rendered / 1024);
+    templates.clear();
+  }
+
+  private static String page(int i) {
+    return HEADER + "~%title%</h1>\n<main id=\"page" + i + "\">~%content%" + FOOTER;
+  }
+
+  private static long usedHeap() {
+    MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+    for (int i = 0; i < 3; ++i) {
+      System.gc();
+    }
+    return memory.getHeapMemoryUsage().getUsed();
+  }
+
+}
@@ -58,6 +58,36 @@ public enum SysProp {
    */
   TMPL_END(Template.class, "parser.tmplEnd", "%"),
 
+  /**
+   * Property: {@code org.klojang.template.parser.minifyHtml}. Default value: {@code
+   * false}.<br> Specifying {@code true} means that insignificant whitespace is
+   * collapsed and HTML comments are stripped from the static text of HTML templates
+   * while they are being parsed, so the rendered output shrinks at no cost per
+   * request. Only templates read from a file or resource whose name ends with {@code
+   * .html}, {@code .htm} or {@code .xhtml} are minified, together with the inline
+   * templates nested inside them. Templates created from a string and templates read
+   * from any other type of file (e.g. {@code .csv} or {@code .txt}) are left alone,
+   * even when included by an HTML template. Runs of whitespace are collapsed into a
+   * single newline or space, but never removed altogether. Conditional comments
+   * ({@code <!--[if IE]>}) and the content of {@code <pre>}, {@code <textarea>},
+   * {@code <script>} and {@code <style>} elements are left alone. Template variables
+   * and tags hidden inside HTML comments ({@code <!-- ~%foo% -->}) are recognized
+   * before minification takes place, so they still work as before.
+   */
+  MINIFY_HTML(Template.class, "parser.minifyHtml", "false"),
+
+  /**
+   * Property: {@code org.klojang.template.parser.deduplicateText}. Default value:
+   * {@code false}.<br> Specifying {@code true} means that identical chunks of static
+   * text (e.g. a navigation bar or a footer copied into many templates) are stored
+   * only once, no matter how many templates contain them. The UTF-8 encoded form of
+   * the text, which is used when rendering to an {@code OutputStream} or to a byte
+   * array, is then shared as well. Only chunks of at least 64 characters are
+   * deduplicated. Templates parsed while the property was {@code false} do not take
+   * part in the deduplication.
+   */
+  DEDUPLICATE_TEXT(Template.class, "parser.deduplicateText", "false"),
+
   /**
    * Property: {@code org.klojang.render.useBeanAccessor}. Default value: {@code
    * false}.<br> Specifying {@code true} means that if a template is {@link
@@ -75,7 +105,19 @@ public enum SysProp {
    * template. If so, consider using the {@code BeanAccessor} class as the fallback
    * {@code Accessor} implementation. See also {@link AccessorRegistry}.
    */
-  USE_BEAN_ACCESSOR(RenderSession.class, "useBeanAccessor", "false");
+  USE_BEAN_ACCESSOR(RenderSession.class, "useBeanAccessor", "false"),
+
+  /**
+   * Property: {@code org.klojang.template.slowCallThreshold}. Default value: {@code
+   * 1000}.<br> Specifies the number of microseconds a single call to an {@link
+   * Accessor} or {@link org.klojang.template.Stringifier Stringifier} may take
+   * before it is reported to the {@link org.klojang.template.RenderMetrics
+   * RenderMetrics} listener as a slow call. Calls are only timed if a listener has
+   * been {@link org.klojang.template.RenderMetrics#install(
+   * org.klojang.template.RenderMetrics) installed}, or if Flight Recorder is
+   * recording Klojang events.
+   */
+  SLOW_CALL_THRESHOLD(RenderSession.class, "slowCallThreshold", "1000");
 
   private final String name;
   private final String dfault;
@@ -13,12 +13,13 @@ import static nl.naturalis.check.CommonChecks.keyIn;
 
 public class SQLTypeNames {
 
-  private static SQLTypeNames instance;
+  // Lazily and safely initialized by the class loader
+  private static class Holder {
+    static final SQLTypeNames INSTANCE = new SQLTypeNames();
+  }
 
   public static String getTypeName(int sqlType) {
-    if (instance == null) {
-      instance = new SQLTypeNames();
-    }
+    SQLTypeNames instance = Holder.INSTANCE;
     return Check.that((Integer) sqlType)
         .is(keyIn(), instance.map, "No such constant in java.sql.Types: %d", sqlType)
         .ok(instance.map::get);
@@ -26,13 +27,10 @@ public class SQLTypeNames {
 
   public static void printAll(PrintStream out) {
     Check.notNull(out);
-    if (instance == null) {
-      instance = new SQLTypeNames();
-    }
-    instance.map.forEach((k, v) -> out.printf("%5d : %s%n", k, v));
+    Holder.INSTANCE.map.forEach((k, v) -> out.printf("%5d : %s%n", k, v));
   }
 
-  private Map<Integer, String> map;
+  private final Map<Integer, String> map;
 
   private SQLTypeNames() {
     Class<Types> clazz = Types.class;
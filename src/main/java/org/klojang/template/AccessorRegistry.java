@@ -6,6 +6,7 @@ import nl.naturalis.common.collection.TypeHashMap;
 import nl.naturalis.common.path.PathWalker;
 import org.klojang.SysProp;
 import org.klojang.db.Row;
+import org.klojang.util.namemappers.CamelCaseToSnakeLowerCase;
 import org.klojang.x.acc.*;
 
 import java.util.Collections;
@@ -198,6 +199,9 @@ public class AccessorRegistry {
     return new Builder();
   }
 
+  private static final String BUILT_IN_MAPPERS =
+      CamelCaseToSnakeLowerCase.class.getPackageName();
+
   private final boolean useBeanAccessor = SysProp.USE_BEAN_ACCESSOR.getBoolean();
 
   private final Map<Class<?>, Map<Template, Accessor<?>>> accs;
@@ -210,12 +214,32 @@ public class AccessorRegistry {
     this.accs = accs.isEmpty()
         ? Collections.emptyMap()
         : TypeHashMap.copyOf(true, true, accs);
-    this.defMapper = defMapper;
-    this.mappers = Map.copyOf(mappers);
+    this.defMapper = cacheBuiltIn(defMapper);
+    Map<Template, NameMapper> tmp = new HashMap<>(mappers);
+    tmp.replaceAll((t, nm) -> cacheBuiltIn(nm));
+    this.mappers = Map.copyOf(tmp);
+  }
+
+  // The name mappers that come with Klojang only look at the name they are given,
+  // so they can safely be cached. We cannot tell for other name mappers.
+  private static NameMapper cacheBuiltIn(NameMapper nm) {
+    if (nm != null
+        && nm.getClass().getPackageName().equals(BUILT_IN_MAPPERS)) {
+      return NameMapper.cached(nm);
+    }
+    return nm;
+  }
+
+  NameMapper getNameMapper(Template template) {
+    NameMapper nm = mappers.getOrDefault(template, defMapper);
+    return nm == null ? NameMapper.AS_IS : nm;
   }
 
   Accessor<?> getAccessor(Object obj, Template template) {
-    Class<?> type = obj.getClass();
+    return getAccessor(obj.getClass(), template);
+  }
+
+  Accessor<?> getAccessor(Class<?> type, Template template) {
     Map<Template, Accessor<?>> m = accs.get(type);
     Accessor<?> acc = null;
     if (m != null) {
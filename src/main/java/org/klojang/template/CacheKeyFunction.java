@@ -0,0 +1,47 @@
+package org.klojang.template;
+
+/**
+ * Derives a cache key from the source data object for a single repetition of a
+ * nested template. Cache key functions are registered with a {@link FragmentCache}
+ * for specific nested templates. If two source data objects produce equal cache
+ * keys, the {@code RenderSession} assumes that they also produce identical output,
+ * and the output rendered for the first object will be re-used for the second.
+ *
+ * <p>Fragments can be removed explicitly through {@link FragmentCache#invalidate(
+ * Template, String, Object) FragmentCache.invalidate}, but that requires knowing
+ * when the source data changes. It is usually simpler to make the cache key include
+ * anything that determines the output of the fragment, including a version number or
+ * last-modified timestamp of the source data. For example:
+ *
+ * <blockquote>
+ *
+ * <pre>{@code
+ * CacheKeyFunction fn = obj -> {
+ *   Product p = (Product) obj;
+ *   return p.getId() + ":" + p.getVersion();
+ * };
+ * }</pre>
+ *
+ * </blockquote>
+ *
+ * <p>Stale fragments (produced for an older version of the source data) are then
+ * never hit again and will eventually be evicted from the cache.
+ *
+ * @author Ayco Holleman
+ * @see FragmentCache.Builder#register(CacheKeyFunction, Template, String...)
+ */
+@FunctionalInterface
+public interface CacheKeyFunction {
+
+  /**
+   * Returns the cache key for the specified source data object, or {@code null} if
+   * the output for this particular object should not be cached. The returned object
+   * must properly implement {@code equals} and {@code hashCode}.
+   *
+   * @param sourceData The object that is about to populate one repetition of a
+   *     nested template
+   * @return The cache key for the source data object
+   */
+  Object getCacheKey(Object sourceData);
+
+}
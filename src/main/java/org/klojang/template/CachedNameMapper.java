@@ -0,0 +1,44 @@
+package org.klojang.template;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+/*
+ * A NameMapper that remembers the names it has mapped. Template variables, nested
+ * templates and column names form a small, closed set of names, so after a short
+ * while mapping a name is just a hash lookup. To guard against an unexpectedly open
+ * set of names, the cache stops growing once it contains maxSize names; names that
+ * did not make it into the cache are mapped on every call.
+ */
+final class CachedNameMapper implements NameMapper {
+
+  static final int DEFAULT_MAX_SIZE = 1024;
+
+  private final NameMapper mapper;
+  private final int maxSize;
+  private final ConcurrentHashMap<String, String> cache = new ConcurrentHashMap<>();
+
+  CachedNameMapper(NameMapper mapper, int maxSize) {
+    this.mapper = mapper;
+    this.maxSize = maxSize;
+  }
+
+  @Override
+  public String map(String name) {
+    if (name == null) { // let the mapper decide what to do with it
+      return mapper.map(name);
+    }
+    String mapped = cache.get(name);
+    if (mapped == null) {
+      mapped = mapper.map(name);
+      if (mapped != null && cache.size() < maxSize) {
+        cache.putIfAbsent(name, mapped);
+      }
+    }
+    return mapped;
+  }
+
+  int size() {
+    return cache.size();
+  }
+
+}
@@ -0,0 +1,205 @@
+package org.klojang.template;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.List;
+import nl.naturalis.check.Check;
+import nl.naturalis.common.ExceptionMethods;
+
+import static nl.naturalis.check.CommonChecks.deepNotNull;
+import static nl.naturalis.common.CollectionMethods.asList;
+import static org.klojang.template.Accessor.UNDEFINED;
+import static org.klojang.template.AccessorRegistry.STANDARD_ACCESSORS;
+import static org.klojang.template.RenderException.lazySourceNotBindable;
+import static org.klojang.template.RenderException.missingSourceData;
+import static org.klojang.template.StringifierRegistry.STANDARD_STRINGIFIERS;
+
+/**
+ * A {@link Template} compiled into a fixed layout: a skeleton containing all of the
+ * template's static text, encoded as UTF-8, plus the offsets within the skeleton at
+ * which the values of the variables, and the output of the nested templates, must be
+ * spliced in. Rendering a {@code CompiledLayout} amounts to copying the skeleton to
+ * the output while, at each slot, inserting the stringified value retrieved from the
+ * data object. Nested templates have a {@code CompiledLayout} of their own, which is
+ * repeated for each element of the array or {@code Collection} retrieved for them.
+ * No {@link RenderSession} is involved, so a {@code CompiledLayout} is well suited
+ * for outputs that are generated over and over again in one go from a single data
+ * object, like CSV or fixed-width exports.
+ *
+ * <p>Values are retrieved and stringified in the same way as when you call
+ * {@link RenderSession#insert(Object, String...) RenderSession.insert}. Lazy data
+ * sources (iterators, streams, result sets) are not supported and cause a
+ * {@link RenderException}. A
+ * {@code CompiledLayout} is immutable and can be used by multiple threads
+ * simultaneously, provided the accessors and stringifiers are thread-safe.
+ *
+ * @author Ayco Holleman
+ */
+public final class CompiledLayout {
+
+  /**
+   * Compiles the specified template into a {@code CompiledLayout} that uses the
+   * {@link AccessorRegistry#STANDARD_ACCESSORS predefined accessors} and the
+   * {@link StringifierRegistry#STANDARD_STRINGIFIERS predefined stringifiers}.
+   *
+   * @param template The template
+   * @return A {@code CompiledLayout} for the template
+   */
+  public static CompiledLayout compile(Template template) {
+    return compile(template, STANDARD_ACCESSORS, STANDARD_STRINGIFIERS);
+  }
+
+  /**
+   * Compiles the specified template into a {@code CompiledLayout} that uses the
+   * specified accessors and stringifiers.
+   *
+   * @param template The template
+   * @param accessors The {@code AccessorRegistry} supplying the accessors
+   * @param stringifiers The {@code StringifierRegistry} supplying the stringifiers
+   * @return A {@code CompiledLayout} for the template
+   */
+  public static CompiledLayout compile(Template template,
+      AccessorRegistry accessors,
+      StringifierRegistry stringifiers) {
+    Check.notNull(template, "template");
+    Check.notNull(accessors, "accessors");
+    Check.notNull(stringifiers, "stringifiers");
+    return new CompiledLayout(template, accessors, stringifiers);
+  }
+
+  private final Template template;
+  private final AccessorRegistry accessors;
+  private final StringifierRegistry stringifiers;
+
+  private final byte[] skeleton;
+  // The offsets of the slots within the skeleton
+  private final int[] offsets;
+  // Either a VariablePart or, for nested templates, a CompiledLayout
+  private final Object[] slots;
+
+  // The size of the previous output, used to presize the output buffer
+  private volatile int sizeHint;
+
+  private CompiledLayout(Template template,
+      AccessorRegistry accessors,
+      StringifierRegistry stringifiers) {
+    this.template = template;
+    this.accessors = accessors;
+    this.stringifiers = stringifiers;
+    ByteArrayOutputStream skel = new ByteArrayOutputStream(template.getStaticLength());
+    List<Integer> offs = new ArrayList<>();
+    List<Object> slts = new ArrayList<>();
+    for (Part part : template.getParts()) {
+      if (part.getClass() == TextPart.class) {
+        skel.writeBytes(((TextPart) part).getBytes());
+      } else {
+        offs.add(skel.size());
+        if (part.getClass() == VariablePart.class) {
+          slts.add(part);
+        } else {
+          Template nested = ((NestedTemplatePart) part).getTemplate();
+          slts.add(new CompiledLayout(nested, accessors, stringifiers));
+        }
+      }
+    }
+    this.skeleton = skel.toByteArray();
+    this.offsets = offs.stream().mapToInt(Integer::intValue).toArray();
+    this.slots = slts.toArray();
+    this.sizeHint = skeleton.length;
+  }
+
+  /**
+   * Renders the layout using the specified data object and returns the output.
+   *
+   * @param data The data object
+   * @return The output, encoded as UTF-8
+   * @throws RenderException If an error occurred while retrieving or stringifying
+   *     the values
+   */
+  public byte[] render(Object data) throws RenderException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream(sizeHint + 64);
+    render(data, out);
+    sizeHint = out.size();
+    return out.toByteArray();
+  }
+
+  /**
+   * Renders the layout using the specified data object and writes the output to
+   * the specified {@code OutputStream}, encoded as UTF-8.
+   *
+   * @param data The data object
+   * @param out The {@code OutputStream} to which to write
+   * @throws RenderException If an error occurred while retrieving or stringifying
+   *     the values
+   */
+  public void render(Object data, OutputStream out) throws RenderException {
+    Check.notNull(out, "out");
+    try {
+      write(data, out);
+    } catch (IOException e) {
+      throw ExceptionMethods.uncheck(e);
+    }
+  }
+
+  /**
+   * Returns the number of slots in the skeleton of this layout, not counting the
+   * slots of the nested templates.
+   *
+   * @return The number of slots in the skeleton of this layout
+   */
+  public int countSlots() {
+    return slots.length;
+  }
+
+  @SuppressWarnings({"unchecked", "rawtypes"})
+  private void write(Object data, OutputStream out) throws RenderException, IOException {
+    if (slots.length == 0) {
+      out.write(skeleton);
+      return;
+    }
+    Accessor acc = accessors.getAccessor(data, template);
+    int prev = 0;
+    for (int i = 0; i < slots.length; ++i) {
+      out.write(skeleton, prev, offsets[i] - prev);
+      prev = offsets[i];
+      if (slots[i].getClass() == VariablePart.class) {
+        VariablePart part = (VariablePart) slots[i];
+        Object value = access(acc, data, part.getName());
+        if (value != UNDEFINED) {
+          Stringifier sf = stringifiers.getStringifier(part, null, value);
+          String s = RenderSession.stringify(template, sf, part.getName(), value);
+          out.write(s.getBytes(StandardCharsets.UTF_8));
+        }
+      } else {
+        CompiledLayout nested = (CompiledLayout) slots[i];
+        Object value = access(acc, data, nested.template.getName());
+        if (value != UNDEFINED) {
+          if (value instanceof ResultSet || LazySource.isLazySource(value)) {
+            throw lazySourceNotBindable(nested.template, value);
+          }
+          List<?> list = asList(value);
+          if (nested.template.isTextOnly()) {
+            for (int j = 0; j < list.size(); ++j) {
+              out.write(nested.skeleton);
+            }
+          } else {
+            Check.on(missingSourceData(nested.template), list).is(deepNotNull());
+            for (Object obj : list) {
+              nested.write(obj, out);
+            }
+          }
+        }
+      }
+    }
+    out.write(skeleton, prev, skeleton.length - prev);
+  }
+
+  private Object access(Accessor<?> acc, Object data, String name) throws RenderException {
+    return RenderSession.access(template, acc, data, name);
+  }
+
+}
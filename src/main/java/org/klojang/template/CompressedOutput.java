@@ -0,0 +1,217 @@
+package org.klojang.template;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import nl.naturalis.common.ExceptionMethods;
+
+/*
+ * Writes a gzip stream that is assembled from independently deflated segments.
+ * Large static text parts are deflated once, sync-flushed so they end on a byte
+ * boundary, and cached inside the TextPart. All other output (variables, small
+ * text parts) is buffered and deflated per request. Each segment is compressed with
+ * a freshly reset Deflater, so no segment refers back into another one, which
+ * makes the concatenation of the segments a valid deflate stream. The CRC32 of a
+ * cached segment is combined with the running CRC32 using a precomputed shift
+ * operator, so the static text does not even have to be checksummed again.
+ */
+final class CompressedOutput extends SegmentedOutput {
+
+  // Text parts smaller than this (in bytes) are not worth a segment of their own
+  static final int MIN_SEGMENT_SIZE = 256;
+
+  // Dynamic output is deflated once the buffer reaches this many characters
+  private static final int MAX_BUFFER_SIZE = 32 * 1024;
+
+  private static final byte[] GZIP_HEADER = {0x1f, (byte) 0x8b, Deflater.DEFLATED, 0, 0, 0,
+      0, 0, 0, 0};
+
+  // A final, empty block using fixed Huffman codes
+  private static final byte[] FINAL_BLOCK = {0x03, 0x00};
+
+  /*
+   * A deflated text segment, cached per TextPart and compression level.
+   */
+  static final class Segment {
+
+    private final byte[] deflated;
+    private final long crc;
+    private final long length;
+    private final long[] crcShift;
+
+    Segment(byte[] bytes, int level) {
+      Deflater deflater = new Deflater(level, true);
+      try {
+        this.deflated = deflate(deflater, bytes);
+      } finally {
+        deflater.end();
+      }
+      CRC32 crc32 = new CRC32();
+      crc32.update(bytes);
+      this.crc = crc32.getValue();
+      this.length = bytes.length;
+      this.crcShift = getShiftOperator(bytes.length);
+    }
+
+    int size() {
+      return deflated.length;
+    }
+  }
+
+  private final OutputStream out;
+  private final int level;
+  private final Deflater deflater;
+  private final StringBuilder buf = new StringBuilder(1024);
+
+  private long crc;
+  private long length;
+
+  CompressedOutput(OutputStream out, int level) {
+    this.out = out;
+    this.level = level;
+    this.deflater = new Deflater(level, true);
+    write(GZIP_HEADER);
+  }
+
+  @Override
+  StringBuilder getBuffer() {
+    if (buf.length() >= MAX_BUFFER_SIZE) {
+      flushBuffer();
+    }
+    return buf;
+  }
+
+  @Override
+  void append(TextPart part) {
+    Segment segment = part.getSegment(level);
+    if (segment == null) {
+      getBuffer().append(part.getText());
+    } else {
+      flushBuffer();
+      write(segment.deflated);
+      crc = apply(segment.crcShift, crc) ^ segment.crc;
+      length += segment.length;
+    }
+  }
+
+  @Override
+  void finish() {
+    try {
+      flushBuffer();
+      write(FINAL_BLOCK);
+      writeInt(crc);
+      writeInt(length);
+      out.flush();
+    } catch (IOException e) {
+      throw ExceptionMethods.uncheck(e);
+    } finally {
+      deflater.end();
+    }
+  }
+
+  private void flushBuffer() {
+    if (buf.length() == 0) {
+      return;
+    }
+    byte[] bytes = buf.toString().getBytes(StandardCharsets.UTF_8);
+    buf.setLength(0);
+    deflater.reset();
+    write(deflate(deflater, bytes));
+    CRC32 crc32 = new CRC32();
+    crc32.update(bytes);
+    crc = shift(crc, bytes.length) ^ crc32.getValue();
+    length += bytes.length;
+  }
+
+  private void writeInt(long i) {
+    write(new byte[] {(byte) i, (byte) (i >> 8), (byte) (i >> 16), (byte) (i >> 24)});
+  }
+
+  private void write(byte[] bytes) {
+    try {
+      out.write(bytes);
+    } catch (IOException e) {
+      throw ExceptionMethods.uncheck(e);
+    }
+  }
+
+  // Deflates the bytes and sync-flushes the Deflater, without finishing it
+  private static byte[] deflate(Deflater deflater, byte[] bytes) {
+    deflater.setInput(bytes);
+    byte[] chunk = new byte[Math.max(64, bytes.length / 2)];
+    ByteArrayOutputStream result = new ByteArrayOutputStream(chunk.length);
+    int n;
+    do {
+      n = deflater.deflate(chunk, 0, chunk.length, Deflater.SYNC_FLUSH);
+      result.write(chunk, 0, n);
+    } while (n == chunk.length);
+    return result.toByteArray();
+  }
+
+  /*
+   * CRC32 combination, after crc32_combine in zlib. The CRC of A followed by B is
+   * the CRC of A, shifted over the length of B, XOR-ed with the CRC of B. Shifting a
+   * CRC over n zero bytes is a linear operation in GF(2), which we represent by a
+   * 32x32 bit matrix (one long per column). SHIFT_OPERATORS[k] shifts a CRC over
+   * 2^k zero bytes. The operator for the length of a cached segment is combined
+   * from these once, so it takes only a single matrix application per render.
+   */
+
+  private static final long[][] SHIFT_OPERATORS = new long[63][];
+
+  static {
+    // Operator for a single zero bit
+    long[] op = new long[32];
+    op[0] = 0xedb88320L; // CRC-32 polynomial, reversed
+    for (int i = 1; i < 32; ++i) {
+      op[i] = 1L << (i - 1);
+    }
+    // Square three times to get the operator for a single zero byte
+    for (int i = 0; i < 3; ++i) {
+      op = multiply(op, op);
+    }
+    SHIFT_OPERATORS[0] = op;
+    for (int i = 1; i < SHIFT_OPERATORS.length; ++i) {
+      SHIFT_OPERATORS[i] = multiply(SHIFT_OPERATORS[i - 1], SHIFT_OPERATORS[i - 1]);
+    }
+  }
+
+  private static long shift(long crc, long length) {
+    for (int k = 0; length != 0; ++k, length >>>= 1) {
+      if ((length & 1) != 0) {
+        crc = apply(SHIFT_OPERATORS[k], crc);
+      }
+    }
+    return crc;
+  }
+
+  private static long apply(long[] matrix, long vector) {
+    long sum = 0;
+    for (int i = 0; vector != 0; ++i, vector >>>= 1) {
+      if ((vector & 1) != 0) {
+        sum ^= matrix[i];
+      }
+    }
+    return sum;
+  }
+
+  private static long[] multiply(long[] a, long[] b) {
+    long[] product = new long[32];
+    for (int i = 0; i < 32; ++i) {
+      product[i] = apply(a, b[i]);
+    }
+    return product;
+  }
+
+  private static long[] getShiftOperator(long length) {
+    long[] op = new long[32];
+    for (int i = 0; i < 32; ++i) {
+      op[i] = shift(1L << i, length);
+    }
+    return op;
+  }
+
+}
@@ -0,0 +1,70 @@
+package org.klojang.template;
+
+import java.io.PrintStream;
+
+/*
+ * A PrintStream that passes everything on to another PrintStream, while counting
+ * the characters written through it. Used to establish the length of the output of
+ * nested templates for the RenderMetrics without buffering that output. Nested
+ * templates further down share the same instance, so the characters are counted
+ * only once, no matter how deeply the templates are nested. Raw bytes (only written
+ * by Renderable implementations other than our own) are counted as one character
+ * each.
+ */
+final class CountingPrintStream extends PrintStream {
+
+  private final PrintStream out;
+
+  private long count;
+
+  CountingPrintStream(PrintStream out) {
+    super(out);
+    this.out = out;
+  }
+
+  long getCount() {
+    return count;
+  }
+
+  @Override
+  public void print(String s) {
+    s = String.valueOf(s);
+    count += s.length();
+    out.print(s);
+  }
+
+  @Override
+  public void print(char c) {
+    ++count;
+    out.print(c);
+  }
+
+  @Override
+  public void print(char[] s) {
+    count += s.length;
+    out.print(s);
+  }
+
+  @Override
+  public void print(Object obj) {
+    print(String.valueOf(obj));
+  }
+
+  @Override
+  public void write(int b) {
+    ++count;
+    out.write(b);
+  }
+
+  @Override
+  public void write(byte[] buf, int off, int len) {
+    count += len;
+    out.write(buf, off, len);
+  }
+
+  @Override
+  public void flush() {
+    out.flush();
+  }
+
+}
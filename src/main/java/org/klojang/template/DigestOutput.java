@@ -0,0 +1,98 @@
+package org.klojang.template;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import nl.naturalis.common.ExceptionMethods;
+
+/*
+ * Feeds the render output into a SHA-256 digest while (optionally) writing it to an
+ * OutputStream, encoded as UTF-8. The UTF-8 bytes of the text parts are cached
+ * inside the TextPart, so the static text never needs to be encoded again. SHA-256
+ * does not allow partial hashes to be combined, so the bytes of the text parts
+ * themselves still go through the digest on every render.
+ */
+final class DigestOutput extends SegmentedOutput {
+
+  private static final String ALGORITHM = "SHA-256";
+
+  // Buffered output is flushed once the buffer reaches this many characters
+  private static final int MAX_BUFFER_SIZE = 8 * 1024;
+
+  // Smaller text parts are just appended to the buffer
+  private static final int MIN_SEGMENT_SIZE = 64;
+
+  private final OutputStream out; // null for hash-only renders
+  private final MessageDigest digest;
+  private final StringBuilder buf = new StringBuilder(1024);
+
+  private String etag;
+
+  DigestOutput(OutputStream out) {
+    this.out = out;
+    try {
+      this.digest = MessageDigest.getInstance(ALGORITHM);
+    } catch (NoSuchAlgorithmException e) {
+      // Every JVM is required to support SHA-256
+      throw ExceptionMethods.uncheck(e);
+    }
+  }
+
+  @Override
+  StringBuilder getBuffer() {
+    if (buf.length() >= MAX_BUFFER_SIZE) {
+      flushBuffer();
+    }
+    return buf;
+  }
+
+  @Override
+  void append(TextPart part) {
+    if (part.getText().length() < MIN_SEGMENT_SIZE) {
+      getBuffer().append(part.getText());
+    } else {
+      flushBuffer();
+      write(part.getBytes());
+    }
+  }
+
+  @Override
+  void finish() {
+    flushBuffer();
+    byte[] hash = digest.digest();
+    etag = '"' + Base64.getUrlEncoder().withoutPadding().encodeToString(hash) + '"';
+    if (out != null) {
+      try {
+        out.flush();
+      } catch (IOException e) {
+        throw ExceptionMethods.uncheck(e);
+      }
+    }
+  }
+
+  String getETag() {
+    return etag;
+  }
+
+  private void flushBuffer() {
+    if (buf.length() != 0) {
+      write(buf.toString().getBytes(StandardCharsets.UTF_8));
+      buf.setLength(0);
+    }
+  }
+
+  private void write(byte[] bytes) {
+    digest.update(bytes);
+    if (out != null) {
+      try {
+        out.write(bytes);
+      } catch (IOException e) {
+        throw ExceptionMethods.uncheck(e);
+      }
+    }
+  }
+
+}
@@ -0,0 +1,269 @@
+package org.klojang.template;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import nl.naturalis.common.collection.IntList;
+
+/*
+ * Estimates the number of bytes retained by a template or a render session by
+ * walking the objects they consist of. The estimate assumes a 64-bit HotSpot JVM
+ * with compressed object pointers (12-byte object headers, 16-byte array headers,
+ * 4-byte references, 8-byte alignment). Every object is counted only once, so
+ * strings and text blocks shared by several templates within the hierarchy, or by
+ * several values within a render session, are not counted twice. Objects we know
+ * nothing about (accessors, stringifiers, Renderable values, lazy data sources) are
+ * counted as a single reference. The size of our own objects is derived from the
+ * instance fields declared by their class, so it keeps up with changes to the
+ * class.
+ */
+final class FootprintEstimator {
+
+  private static final int HEADER = 12;
+  private static final int ARRAY_HEADER = 16;
+  private static final int REF = 4;
+
+  private static final ClassValue<Long> SHALLOW_SIZES = new ClassValue<>() {
+    @Override
+    protected Long computeValue(Class<?> type) {
+      int refs = 0, primitiveBytes = 0;
+      for (Class<?> c = type; c != Object.class; c = c.getSuperclass()) {
+        for (Field f : c.getDeclaredFields()) {
+          if (Modifier.isStatic(f.getModifiers())) {
+            continue;
+          } else if (f.getType().isPrimitive()) {
+            primitiveBytes += primitiveSize(f.getType());
+          } else {
+            ++refs;
+          }
+        }
+      }
+      return object(refs, primitiveBytes);
+    }
+  };
+
+  private final Set<Object> seen = Collections.newSetFromMap(new IdentityHashMap<>());
+
+  private long size;
+
+  /*
+   * Estimates the size of the specified template and all templates descending from
+   * it, including the text of the template and the index structures created by the
+   * parser.
+   */
+  static long estimate(Template template) {
+    FootprintEstimator fe = new FootprintEstimator();
+    for (Template t : TemplateUtils.getTemplateHierarchy(template)) {
+      fe.addTemplate(t);
+    }
+    return fe.size;
+  }
+
+  /*
+   * Estimates the size of the specified render state and the states of all child
+   * sessions, excluding the templates they render, which are shared by all
+   * sessions.
+   */
+  static long estimate(RenderState state) {
+    FootprintEstimator fe = new FootprintEstimator();
+    fe.addState(state);
+    return fe.size;
+  }
+
+  private FootprintEstimator() {}
+
+  private void addTemplate(Template t) {
+    size += shallowSize(Template.class);
+    List<Part> parts = t.getParts();
+    size += object(1, 0) + array(parts.size(), REF);
+    int textLength = 0;
+    for (Part part : parts) {
+      size += shallowSize(part.getClass());
+      if (part.getClass() == TextPart.class) {
+        addTextBlock(((TextPart) part).getBlock());
+        textLength += ((TextPart) part).getText().length();
+      } else if (part.getClass() == VariablePart.class) {
+        addString(((VariablePart) part).getName());
+      }
+    }
+    if (t.getNames().isEmpty()) { // the concatenated text of a text-only template
+      size += object(1, 8) + array(textLength, 1);
+    }
+    addIndices(t.getVarPartIndices());
+    size += map(t.getTemplatePartIndices().size()) + object(0, 4) * t.countNestedTemplates();
+    size += object(1, 0) + array(t.getNames().size(), REF);
+    t.getNames().forEach(this::addString);
+    for (VarSlot slot : t.getVarSlots()) {
+      size += shallowSize(VarSlot.class) + array(slot.getPartIndices().length, 4);
+    }
+    size += map(t.getVarSlots().length) + array(t.getVarSlots().length, REF);
+    size += map(t.countNestedTemplates())
+        + shallowSize(NestedSlot.class) * t.countNestedTemplates();
+    size += intList(t.getTextPartIndices());
+  }
+
+  private void addTextBlock(TextBlock block) {
+    if (seen.add(block)) {
+      size += shallowSize(TextBlock.class);
+      addString(block.getText());
+      if (block.peekBytes() != null) {
+        size += array(block.peekBytes().length, 1);
+      }
+      CompressedOutput.Segment[] segments = block.peekSegments();
+      if (segments != null) {
+        size += array(segments.length, REF);
+        for (CompressedOutput.Segment seg : segments) {
+          if (seg != null) {
+            size += shallowSize(CompressedOutput.Segment.class)
+                + array(seg.size(), 1)
+                + array(32, 8);
+          }
+        }
+      }
+    }
+  }
+
+  private void addIndices(Map<String, IntList> indices) {
+    size += map(indices.size());
+    indices.forEach((name, list) -> {
+      addString(name);
+      size += intList(list);
+    });
+  }
+
+  private void addState(RenderState state) {
+    Template t = state.getSessionConfig().getTemplate();
+    size += shallowSize(RenderSession.class) + shallowSize(RenderState.class);
+    if (seen.add(state.getSessionConfig())) {
+      size += shallowSize(SessionConfig.class);
+    }
+    size += array(t.getParts().size(), REF) + array(t.getVarSlots().length, 1);
+    for (int i = 0; i < t.getParts().size(); ++i) {
+      addValue(state.getVar(i));
+    }
+    Map<Template, RenderSession[]> sessions = state.getChildSessions();
+    size += map(sessions.size());
+    for (Template nested : t.getNestedTemplates()) {
+      RenderSession[] children = sessions.get(nested);
+      if (children != null && seen.add(children)) {
+        size += array(children.length, REF);
+        for (RenderSession child : children) {
+          if (child != null && seen.add(child)) {
+            addState(child.getState());
+          }
+        }
+      }
+      LeafColumns columns = state.getColumns(nested);
+      if (columns != null) {
+        addColumns(columns);
+      }
+      addStrings(state.getFragments(nested));
+      if (state.getCacheKeys(nested) != null) {
+        size += array(state.getCacheKeys(nested).length, REF);
+      }
+      if (state.getLazySource(nested) != null) {
+        size += REF;
+      }
+    }
+  }
+
+  private void addColumns(LeafColumns columns) {
+    Template t = columns.getTemplate();
+    size += shallowSize(LeafColumns.class) + object(0, 4); // plus its AtomicInteger
+    size += array(t.getParts().size(), REF) + array(t.getParts().size(), 1);
+    for (IntList indices : t.getVarPartIndices().values()) {
+      for (int i = 0; i < indices.size(); ++i) {
+        int partIndex = indices.get(i);
+        size += array(columns.getRepeats(), REF);
+        for (int j = 0; j < columns.getRepeats(); ++j) {
+          addString(columns.getValue(partIndex, j));
+        }
+      }
+    }
+  }
+
+  private void addValue(Object value) {
+    if (value == null || !seen.add(value)) {
+      return;
+    }
+    if (value.getClass() == String[].class) {
+      addStrings((String[]) value);
+    } else if (value.getClass() == ListValue.class) {
+      ListValue lv = (ListValue) value;
+      size += shallowSize(ListValue.class);
+      addStrings(lv.getValues());
+      for (String delim : lv.getDelimiters()) {
+        addString(delim);
+      }
+    } else { // a Renderable
+      size += REF;
+    }
+  }
+
+  private void addStrings(String[] strings) {
+    if (strings != null) {
+      size += array(strings.length, REF);
+      for (String s : strings) {
+        addString(s);
+      }
+    }
+  }
+
+  private void addString(String s) {
+    if (s != null && seen.add(s)) {
+      size += object(1, 8) + array(s.length(), isLatin1(s) ? 1 : 2);
+    }
+  }
+
+  private static boolean isLatin1(String s) {
+    for (int i = 0; i < s.length(); ++i) {
+      if (s.charAt(i) > 0xff) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  // The size of an instance of the specified class, excluding the objects it refers to
+  static long shallowSize(Class<?> type) {
+    return SHALLOW_SIZES.get(type);
+  }
+
+  private static int primitiveSize(Class<?> type) {
+    if (type == long.class || type == double.class) {
+      return 8;
+    } else if (type == int.class || type == float.class) {
+      return 4;
+    } else if (type == short.class || type == char.class) {
+      return 2;
+    }
+    return 1;
+  }
+
+  private static long intList(IntList list) {
+    return shallowSize(list.getClass()) + array(list.size(), 4);
+  }
+
+  // A HashMap (or IdentityHashMap) with the specified number of entries
+  private static long map(int entries) {
+    int capacity = Integer.highestOneBit(Math.max(1, (int) (entries / .75f)) * 2 - 1);
+    return object(5, 16) + array(capacity, REF) + object(3, 4) * entries;
+  }
+
+  private static long object(int refs, int primitiveBytes) {
+    return align(HEADER + refs * REF + primitiveBytes);
+  }
+
+  private static long array(int length, int elementSize) {
+    return align(ARRAY_HEADER + (long) length * elementSize);
+  }
+
+  private static long align(long size) {
+    return (size + 7) & ~7L;
+  }
+
+}
@@ -0,0 +1,262 @@
+package org.klojang.template;
+
+import nl.naturalis.check.Check;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static nl.naturalis.check.CommonChecks.*;
+import static org.klojang.template.TemplateUtils.getNestedTemplate;
+
+/**
+ * A bounded, least-recently-used cache for the output of repeating nested templates
+ * (a.k.a. "Russian-doll caching"). For each nested template that you want to be
+ * cached you register a {@link CacheKeyFunction} that derives a cache key from the
+ * source data object of a single repetition. When the nested template is populated
+ * (e.g. through {@link RenderSession#populate(String, Object, String...) populate}
+ * or {@link RenderSession#insert(Object, String...) insert}), the
+ * {@code RenderSession} first looks up the cache key. If there is a hit, no child
+ * session is created for that repetition and the cached output is written as-is.
+ * Otherwise a child session is created and populated as usual, and its output is
+ * added to the cache when it is rendered for the first time. Since child sessions
+ * inherit the {@code FragmentCache} of their parent session, fragments cached at
+ * different nesting levels compose naturally: a hit on an outer fragment skips all
+ * work for the fragments nested inside it.
+ *
+ * <blockquote>
+ *
+ * <pre>{@code
+ * FragmentCache cache = FragmentCache.configure()
+ *  .setMaxEntries(10_000)
+ *  .register(p -> ((Product) p).getId() + ":" + ((Product) p).getVersion(),
+ *      template,
+ *      "products")
+ *  .freeze();
+ * RenderSession session = template.newRenderSession(STANDARD_ACCESSORS,
+ *    STANDARD_STRINGIFIERS,
+ *    cache);
+ * }</pre>
+ *
+ * </blockquote>
+ *
+ * <p>The cache is bounded both by the number of entries and by the total number of
+ * characters stored in it. A {@code FragmentCache} is thread-safe and is meant to be
+ * shared between render sessions (and requests). Note that the {@code FragmentCache}
+ * does not know which {@link AccessorRegistry} and {@link StringifierRegistry} were
+ * used to produce a fragment. If you render the same template using different
+ * registries, use a different {@code FragmentCache} for each of them.
+ *
+ * @author Ayco Holleman
+ * @see CacheKeyFunction
+ */
+public final class FragmentCache {
+
+  /* ++++++++++++++++++++[ BEGIN BUILDER CLASS ]+++++++++++++++++ */
+
+  /**
+   * Lets you configure a {@link FragmentCache}.
+   *
+   * @author Ayco Holleman
+   */
+  public static class Builder {
+
+    private static final String ERR_TEXT_ONLY = "Text-only templates cannot be cached: %s";
+    private static final String ERR_REGISTERED = "Cache key function already set for %s";
+
+    private int maxEntries = 1000;
+    private int maxSize = 1024 * 1024;
+
+    private final Map<Template, CacheKeyFunction> keyFunctions = new HashMap<>();
+
+    private Builder() {}
+
+    /**
+     * Sets the maximum number of fragments in the cache. Default 1000.
+     *
+     * @param maxEntries The maximum number of fragments in the cache
+     * @return This {@code Builder}
+     */
+    public Builder setMaxEntries(int maxEntries) {
+      this.maxEntries = Check.that(maxEntries, "maxEntries").is(gt(), 0).ok();
+      return this;
+    }
+
+    /**
+     * Sets the maximum total number of characters of all fragments in the cache.
+     * Default 1,048,576 (1M). Fragments larger than this are never cached.
+     *
+     * @param maxSize The maximum total number of characters in the cache
+     * @return This {@code Builder}
+     */
+    public Builder setMaxSize(int maxSize) {
+      this.maxSize = Check.that(maxSize, "maxSize").is(gt(), 0).ok();
+      return this;
+    }
+
+    /**
+     * Enables caching for the specified nested templates, using the specified
+     * function to derive cache keys from their source data. The template names are
+     * taken to be fully-qualified names, relative to the specified template.
+     *
+     * @param keyFunction The function producing the cache keys
+     * @param template The template containing the nested templates
+     * @param nestedTemplateNames The fully-qualified names of the nested templates
+     *     whose output to cache
+     * @return This {@code Builder}
+     */
+    public Builder register(CacheKeyFunction keyFunction,
+        Template template,
+        String... nestedTemplateNames) {
+      Check.notNull(keyFunction, "keyFunction");
+      Check.notNull(template, "template");
+      Check.that(nestedTemplateNames, "nestedTemplateNames").is(deepNotEmpty());
+      for (String name : nestedTemplateNames) {
+        Template t = getNestedTemplate(template, name);
+        Check.that(t).isNot(Template::isTextOnly, ERR_TEXT_ONLY, name);
+        Check.that(t)
+            .isNot(keyIn(), keyFunctions, ERR_REGISTERED, name)
+            .then(x -> keyFunctions.put(x, keyFunction));
+      }
+      return this;
+    }
+
+    /**
+     * Returns a new {@code FragmentCache} instance.
+     *
+     * @return A new {@code FragmentCache} instance
+     */
+    public FragmentCache freeze() {
+      return new FragmentCache(this);
+    }
+
+  }
+
+  /* +++++++++++++++++++++[ END BUILDER CLASS ]++++++++++++++++++ */
+
+  /**
+   * Returns a {@code Builder} instance that lets you configure a
+   * {@code FragmentCache}.
+   *
+   * @return A {@code Builder} instance that lets you configure a
+   *     {@code FragmentCache}
+   */
+  public static Builder configure() {
+    return new Builder();
+  }
+
+  private final Map<Template, CacheKeyFunction> keyFunctions;
+  private final LinkedHashMap<Key, String> fragments;
+  private final int maxEntries;
+  private final int maxSize;
+
+  private int size;
+
+  private FragmentCache(Builder builder) {
+    this.keyFunctions = Map.copyOf(builder.keyFunctions);
+    this.maxEntries = builder.maxEntries;
+    this.maxSize = builder.maxSize;
+    this.fragments = new LinkedHashMap<>(16, 0.75F, true);
+  }
+
+  /**
+   * Removes the fragment with the specified cache key from the cache.
+   *
+   * @param template The template containing the nested template
+   * @param nestedTemplateName The fully-qualified name of the nested template
+   * @param cacheKey The cache key
+   */
+  public void invalidate(Template template, String nestedTemplateName, Object cacheKey) {
+    Check.notNull(template, "template");
+    Check.notNull(cacheKey, "cacheKey");
+    Template t = getNestedTemplate(template, nestedTemplateName);
+    synchronized (this) {
+      String fragment = fragments.remove(new Key(t, cacheKey));
+      if (fragment != null) {
+        size -= fragment.length();
+      }
+    }
+  }
+
+  /**
+   * Removes all fragments from the cache.
+   */
+  public synchronized void clear() {
+    fragments.clear();
+    size = 0;
+  }
+
+  /**
+   * Returns the number of fragments currently in the cache.
+   *
+   * @return The number of fragments currently in the cache
+   */
+  public synchronized int countEntries() {
+    return fragments.size();
+  }
+
+  /**
+   * Returns the total number of characters of all fragments currently in the
+   * cache.
+   *
+   * @return The total number of characters of all fragments currently in the cache
+   */
+  public synchronized int getSize() {
+    return size;
+  }
+
+  CacheKeyFunction getKeyFunction(Template template) {
+    return keyFunctions.get(template);
+  }
+
+  synchronized String get(Template template, Object cacheKey) {
+    return fragments.get(new Key(template, cacheKey));
+  }
+
+  synchronized void put(Template template, Object cacheKey, String fragment) {
+    if (fragment.length() > maxSize) {
+      return;
+    }
+    String old = fragments.put(new Key(template, cacheKey), fragment);
+    if (old != null) {
+      size -= old.length();
+    }
+    size += fragment.length();
+    Iterator<String> iter = fragments.values().iterator();
+    while (fragments.size() > maxEntries || size > maxSize) {
+      size -= iter.next().length();
+      iter.remove();
+    }
+  }
+
+  // Nested templates are compared by identity. Using Template.equals() would be
+  // relatively expensive and gains us nothing.
+  private static final class Key {
+
+    private final Template template;
+    private final Object cacheKey;
+    private final int hash;
+
+    Key(Template template, Object cacheKey) {
+      this.template = template;
+      this.cacheKey = cacheKey;
+      this.hash = System.identityHashCode(template) * 31 + cacheKey.hashCode();
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+      if (this == obj) {
+        return true;
+      }
+      Key other = (Key) obj;
+      return template == other.template && cacheKey.equals(other.cacheKey);
+    }
+
+    @Override
+    public int hashCode() {
+      return hash;
+    }
+  }
+
+}
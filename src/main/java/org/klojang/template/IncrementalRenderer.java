@@ -0,0 +1,254 @@
+package org.klojang.template;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import nl.naturalis.check.Check;
+
+import static nl.naturalis.check.CommonChecks.listIndexOf;
+import static nl.naturalis.check.CommonChecks.yes;
+import static nl.naturalis.common.StringMethods.concat;
+
+/**
+ * Renders a {@link RenderSession} once and then, after the session has been updated,
+ * produces a list of {@link Patch patches} for just those parts of the output that
+ * have changed. Useful for pages that are kept up-to-date by pushing changes to the
+ * client (e.g. dashboards). The output is divided into regions, one for each part of
+ * the session's template: the static text in between the variables and nested
+ * templates, each variable and each nested template. The region ID is the index of
+ * the part within the template. Only variable and nested template regions can
+ * change. A variable region is only re-rendered if its value was
+ * {@link RenderSession#unset(String) unset} and then set again. A nested template
+ * region is re-rendered on every update (unless it is populated from a lazy data
+ * source that was not replaced) and its new output is compared with the old output.
+ * Changes are not tracked per child session: a nested template region is always
+ * patched as a whole, so if a single repetition of a nested template changes, the
+ * patch contains the output of all of its repetitions. Large, frequently changing
+ * tables are therefore better split into several nested templates. The output is
+ * encoded as UTF-8, and offsets and lengths are measured in bytes.
+ *
+ * <blockquote><pre>{@code
+ * RenderSession session = template.newRenderSession().insert(stats);
+ * IncrementalRenderer renderer = session.createIncrementalRenderer();
+ * byte[] page = renderer.render();
+ * // ... later ...
+ * session.unset("visitors").set("visitors", visitorCount);
+ * List<Patch> patches = renderer.update();
+ * }</pre></blockquote>
+ *
+ * <p>An {@code IncrementalRenderer} is not thread-safe. Neither is the
+ * {@code RenderSession} it renders.
+ *
+ * @author Ayco Holleman
+ */
+public final class IncrementalRenderer {
+
+  private static final String ERR_NOT_RENDERED = "render() must be called before update()";
+
+  /**
+   * A change in the output of an {@link IncrementalRenderer}. A patch replaces
+   * {@link #getLength() length} bytes at {@link #getOffset() offset} with the
+   * {@link #getBytes() new bytes}. The offset refers to the document as it was
+   * before the update that produced the patch. Apply the patches of a single update
+   * in reverse order if you are patching a copy of the previous document.
+   */
+  public static final class Patch {
+
+    private final int region;
+    private final String name;
+    private final int offset;
+    private final int length;
+    private final byte[] bytes;
+
+    private Patch(int region, String name, int offset, int length, byte[] bytes) {
+      this.region = region;
+      this.name = name;
+      this.offset = offset;
+      this.length = length;
+      this.bytes = bytes;
+    }
+
+    /**
+     * Returns the ID of the region that has changed, which is the index of the
+     * variable or nested template within the template.
+     *
+     * @return The ID of the region that has changed
+     */
+    public int getRegion() {
+      return region;
+    }
+
+    /**
+     * Returns the name of the variable or nested template whose output has
+     * changed.
+     *
+     * @return The name of the variable or nested template whose output has changed
+     */
+    public String getName() {
+      return name;
+    }
+
+    /**
+     * Returns the offset of the region within the previous version of the
+     * document.
+     *
+     * @return The offset of the region within the previous version of the document
+     */
+    public int getOffset() {
+      return offset;
+    }
+
+    /**
+     * Returns the length of the region within the previous version of the
+     * document.
+     *
+     * @return The length of the region within the previous version of the document
+     */
+    public int getLength() {
+      return length;
+    }
+
+    /**
+     * Returns the new contents of the region.
+     *
+     * @return The new contents of the region
+     */
+    public byte[] getBytes() {
+      return bytes;
+    }
+
+    @Override
+    public String toString() {
+      return concat("Patch[region=", region, ", name=", name, ", offset=", offset,
+          ", length=", length, "]");
+    }
+  }
+
+  private final RenderState state;
+  private final Renderer renderer;
+  private final List<Part> parts;
+
+  // The retained output, per region
+  private final byte[][] regions;
+  // The values the variable regions were rendered with, and the lazy sources the
+  // nested template regions were rendered from
+  private final Object[] rendered;
+
+  private boolean initialized;
+
+  IncrementalRenderer(RenderState state) {
+    this.state = state;
+    this.renderer = new Renderer(state);
+    this.parts = state.getSessionConfig().getTemplate().getParts();
+    this.regions = new byte[parts.size()][];
+    this.rendered = new Object[parts.size()];
+  }
+
+  /**
+   * Renders the entire document.
+   *
+   * @return The entire document
+   */
+  public byte[] render() {
+    for (int i = 0; i < parts.size(); ++i) {
+      regions[i] = renderRegion(i);
+    }
+    initialized = true;
+    return getDocument();
+  }
+
+  /**
+   * Re-renders the parts of the document that may have changed since the previous
+   * call to {@link #render()} or {@code update()}, and returns patches for the
+   * regions that actually did change, in document order.
+   *
+   * @return The changes made to the document
+   */
+  public List<Patch> update() {
+    Check.on(IllegalStateException::new, initialized).is(yes(), ERR_NOT_RENDERED);
+    List<Patch> patches = new ArrayList<>();
+    int offset = 0;
+    for (int i = 0; i < parts.size(); ++i) {
+      byte[] old = regions[i];
+      if (isStale(i)) {
+        byte[] bytes = renderRegion(i);
+        if (!Arrays.equals(old, bytes)) {
+          String name = ((NamedPart) parts.get(i)).getName();
+          patches.add(new Patch(i, name, offset, old.length, bytes));
+          regions[i] = bytes;
+        }
+      }
+      offset += old.length;
+    }
+    return patches;
+  }
+
+  /**
+   * Returns the document as it is after the last call to {@link #render()} or
+   * {@link #update()}.
+   *
+   * @return The current version of the document
+   */
+  public byte[] getDocument() {
+    Check.on(IllegalStateException::new, initialized).is(yes(), ERR_NOT_RENDERED);
+    int size = 0;
+    for (byte[] region : regions) {
+      size += region.length;
+    }
+    byte[] doc = new byte[size];
+    int offset = 0;
+    for (byte[] region : regions) {
+      System.arraycopy(region, 0, doc, offset, region.length);
+      offset += region.length;
+    }
+    return doc;
+  }
+
+  /**
+   * Returns the offset of the specified region within the current version of the
+   * document.
+   *
+   * @param region The region ID
+   * @return The offset of the region
+   */
+  public int getOffset(int region) {
+    Check.on(IllegalStateException::new, initialized).is(yes(), ERR_NOT_RENDERED);
+    Check.that(region, "region").is(listIndexOf(), parts);
+    int offset = 0;
+    for (int i = 0; i < region; ++i) {
+      offset += regions[i].length;
+    }
+    return offset;
+  }
+
+  private boolean isStale(int partIndex) {
+    Part part = parts.get(partIndex);
+    if (part.getClass() == TextPart.class) {
+      return false;
+    } else if (part.getClass() == VariablePart.class) {
+      return state.getVar(partIndex) != rendered[partIndex];
+    }
+    // One-shot sources (e.g. an Iterator) cannot be rendered twice
+    Template t = ((NestedTemplatePart) part).getTemplate();
+    return state.getLazySource(t) == null || state.getLazySource(t) != rendered[partIndex];
+  }
+
+  private byte[] renderRegion(int partIndex) {
+    Part part = parts.get(partIndex);
+    if (part.getClass() == TextPart.class) {
+      return ((TextPart) part).getBytes();
+    }
+    StringBuilder sb = new StringBuilder();
+    if (part.getClass() == VariablePart.class) {
+      Renderer.renderVar(state, partIndex, sb);
+      rendered[partIndex] = state.getVar(partIndex);
+    } else {
+      NestedTemplatePart ntp = (NestedTemplatePart) part;
+      renderer.renderNested(state, ntp, sb);
+      rendered[partIndex] = state.getLazySource(ntp.getTemplate());
+    }
+    return sb.toString().getBytes(StandardCharsets.UTF_8);
+  }
+
+}
@@ -0,0 +1,55 @@
+package org.klojang.template;
+
+import nl.naturalis.check.Check;
+
+import java.util.Iterator;
+
+/**
+ * Marks an {@code Iterable} as a lazy data source for a nested template. An
+ * {@code Iterator} or a {@code Stream} passed to
+ * {@link RenderSession#populate(String, Object, String...) RenderSession.populate}
+ * is always treated as a lazy data source. A plain {@code Iterable} is not, since
+ * plenty of objects that happen to implement {@code Iterable} (a
+ * {@link java.nio.file.Path}, for example) are meant to be used as a single source
+ * data object. Wrapping an {@code Iterable} in a {@code LazyIterable} makes the
+ * {@code RenderSession} walk it only when the template is rendered, and each time
+ * it is rendered:
+ *
+ * <blockquote>
+ *
+ * <pre>{@code
+ * session.populate("rows", LazyIterable.of(repository.findAll()));
+ * }</pre>
+ *
+ * </blockquote>
+ *
+ * @param <T> The type of the elements
+ * @author Ayco Holleman
+ * @see RenderSession#populate(String, Object, String...)
+ */
+public final class LazyIterable<T> implements Iterable<T> {
+
+  /**
+   * Returns a {@code LazyIterable} wrapping the specified {@code Iterable}.
+   *
+   * @param <U> The type of the elements
+   * @param iterable The {@code Iterable} to wrap
+   * @return A {@code LazyIterable} wrapping the specified {@code Iterable}
+   */
+  public static <U> LazyIterable<U> of(Iterable<U> iterable) {
+    Check.notNull(iterable, "iterable");
+    return new LazyIterable<>(iterable);
+  }
+
+  private final Iterable<T> iterable;
+
+  private LazyIterable(Iterable<T> iterable) {
+    this.iterable = iterable;
+  }
+
+  @Override
+  public Iterator<T> iterator() {
+    return iterable.iterator();
+  }
+
+}
@@ -0,0 +1,116 @@
+package org.klojang.template;
+
+import nl.naturalis.check.Check;
+import org.klojang.KlojangRTException;
+
+import java.util.Iterator;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+import static nl.naturalis.check.CommonChecks.notNull;
+import static org.klojang.template.RenderException.missingSourceData;
+import static org.klojang.template.TemplateUtils.getFQName;
+
+/*
+ * A LazyIterable, Iterator or Stream that is to populate a nested template, but that
+ * is only consumed once the template is rendered. Each element is inserted into a
+ * single, reused child session, rendered, and discarded, so the memory footprint
+ * does not depend on the number of elements.
+ */
+class LazySource {
+
+  private static final String ERR_CONSUMED = "Data source for template %s already "
+      + "consumed. An Iterator, Stream or ResultSet can be rendered only once. Use an "
+      + "LazyIterable to render the template multiple times";
+
+  // Other Iterables are treated as ordinary source data objects. See LazyIterable.
+  static boolean isLazySource(Object sourceData) {
+    return sourceData instanceof Iterator
+        || sourceData instanceof Stream
+        || sourceData instanceof LazyIterable;
+  }
+
+  private final Template template;
+  private final Object source;
+  private final VarGroup defGroup;
+  private final String[] names;
+
+  private boolean consumed;
+
+  LazySource(Template template, Object source, VarGroup defGroup, String[] names) {
+    this.template = template;
+    this.source = source;
+    this.defGroup = defGroup;
+    this.names = names;
+  }
+
+  Template getTemplate() {
+    return template;
+  }
+
+  // Whether the data source can be walked only once
+  boolean isSingleUse() {
+    return !(source instanceof Iterable);
+  }
+
+  int count() {
+    Iterator<?> iter = iterator();
+    int count = 0;
+    for (; iter.hasNext(); ++count) {
+      iter.next();
+    }
+    close();
+    return count;
+  }
+
+  /*
+   * Populates a single child session with each of the elements and passes its
+   * state to the specified consumer (the Renderer) before resetting it for the
+   * next element. RenderExceptions are rethrown as KlojangRTExceptions since the
+   * render methods do not allow for checked exceptions.
+   */
+  void forEach(SessionConfig parentConfig, Consumer<RenderState> consumer) {
+    RenderSession child = parentConfig.newChildSession(template);
+    Iterator<?> iter = iterator();
+    try {
+      while (iter.hasNext()) {
+        Object data = Check.on(missingSourceData(template), iter.next())
+            .is(notNull())
+            .ok();
+        child.insert(data, defGroup, names);
+        consumer.accept(child.getState());
+        child.getState().reset();
+      }
+    } catch (RenderException e) {
+      throw new KlojangRTException(e);
+    } finally {
+      close();
+    }
+  }
+
+  private Iterator<?> iterator() {
+    if (source instanceof Iterable) {
+      return ((Iterable<?>) source).iterator();
+    }
+    markConsumed();
+    if (source instanceof Stream) {
+      return ((Stream<?>) source).iterator();
+    }
+    return (Iterator<?>) source;
+  }
+
+  // Single-use data sources can be consumed only once
+  synchronized void markConsumed() {
+    if (consumed) {
+      throw new KlojangRTException(ERR_CONSUMED, getFQName(template));
+    }
+    consumed = true;
+  }
+
+  private void close() {
+    if (source instanceof Stream) {
+      ((Stream<?>) source).close();
+    }
+  }
+
+}
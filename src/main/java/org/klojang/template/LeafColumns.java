@@ -0,0 +1,103 @@
+package org.klojang.template;
+
+import nl.naturalis.common.collection.IntList;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/*
+ * Compact storage for the repetitions of a nested template that does not itself
+ * contain nested templates. Rather than creating a full-blown RenderSession for
+ * each repetition, the stringified values are stored in one array per variable
+ * part, indexed by repetition. As long as nobody asks for the child sessions
+ * (e.g. through RenderSession.in), the child sessions are never created. If they
+ * are, the columns are converted into regular child sessions (see RenderState).
+ */
+final class LeafColumns {
+
+  private final Template template;
+  private final int repeats;
+  private final String[][] columns; // indexed by part index, then by repetition
+  // Whether the part is the first occurrence of its variable, indexed by part index
+  private final boolean[] first;
+  // The state that will be notified once all values have been set
+  private final RenderState owner;
+  // The number of variable-repetition pairs that have not been set yet. Atomic
+  // because the repetitions may be populated in parallel.
+  private final AtomicInteger unset;
+
+  LeafColumns(Template template, int repeats, RenderState owner) {
+    this.template = template;
+    this.repeats = repeats;
+    this.owner = owner;
+    List<Part> parts = template.getParts();
+    this.columns = new String[parts.size()][];
+    this.first = new boolean[parts.size()];
+    for (IntList indices : template.getVarPartIndices().values()) {
+      indices.forEach(i -> columns[i] = new String[repeats]);
+      first[indices.get(0)] = true;
+    }
+    this.unset = new AtomicInteger(repeats * template.getVarPartIndices().size());
+  }
+
+  Template getTemplate() {
+    return template;
+  }
+
+  int getRepeats() {
+    return repeats;
+  }
+
+  String getValue(int partIndex, int repetition) {
+    return columns[partIndex][repetition];
+  }
+
+  void setValue(int partIndex, int repetition, String value) {
+    if (first[partIndex] && columns[partIndex][repetition] == null) {
+      if (unset.decrementAndGet() == 0) {
+        owner.addPending(-1);
+      }
+    }
+    columns[partIndex][repetition] = value;
+  }
+
+  // All occurrences of a variable are always set together, so we only need to
+  // check the first one.
+  boolean isSet(String var, int repetition) {
+    int partIndex = template.getVarPartIndices().get(var).get(0);
+    return columns[partIndex][repetition] != null;
+  }
+
+  boolean isFullyPopulated() {
+    return unset.get() == 0;
+  }
+
+  void collectUnsetVars(List<String> names) {
+    for (int i = 0; i < repeats; ++i) {
+      for (String var : template.getVariables()) {
+        if (!isSet(var, i)) {
+          names.add(TemplateUtils.getFQName(template, var));
+        }
+      }
+    }
+  }
+
+  RenderSession[] toSessions(SessionConfig parentConfig) {
+    RenderSession[] sessions = new RenderSession[repeats];
+    for (int i = 0; i < repeats; ++i) {
+      RenderSession session = parentConfig.newChildSession(template);
+      RenderState state = session.getState();
+      for (String var : template.getVariables()) {
+        if (isSet(var, i)) {
+          int rep = i;
+          IntList indices = template.getVarPartIndices().get(var);
+          indices.forEach(p -> state.setVar(p, new String[] {columns[p][rep]}));
+          state.done(var);
+        }
+      }
+      sessions[i] = session;
+    }
+    return sessions;
+  }
+
+}
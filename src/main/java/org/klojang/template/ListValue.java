@@ -0,0 +1,74 @@
+package org.klojang.template;
+
+import java.io.PrintStream;
+import java.util.Arrays;
+import java.util.Objects;
+
+/*
+ * The value of a variable that was set to a list of values with a prefix,
+ * separator and/or suffix. Rather than gluing the delimiters to each of the
+ * stringified values, they are kept apart and only written out by the Renderer.
+ * Empty delimiters are stored as null, so they cost a null check per value rather
+ * than a call to append. Lists without any delimiters are not wrapped into a
+ * ListValue at all; they are stored as a plain String[].
+ */
+final class ListValue {
+
+  private final String[] values;
+  private final String prefix;
+  private final String separator;
+  private final String suffix;
+
+  ListValue(String[] values, String prefix, String separator, String suffix) {
+    this.values = values;
+    this.prefix = e2n(prefix);
+    this.separator = e2n(separator);
+    this.suffix = e2n(suffix);
+  }
+
+  String[] getValues() {
+    return values;
+  }
+
+  // Returns the delimiters that are not empty
+  String[] getDelimiters() {
+    return Arrays.stream(new String[] {prefix, separator, suffix})
+        .filter(Objects::nonNull)
+        .toArray(String[]::new);
+  }
+
+  void appendTo(StringBuilder sb) {
+    for (int i = 0; i < values.length; ++i) {
+      if (i != 0 && separator != null) {
+        sb.append(separator);
+      }
+      if (prefix != null) {
+        sb.append(prefix);
+      }
+      sb.append(values[i]);
+      if (suffix != null) {
+        sb.append(suffix);
+      }
+    }
+  }
+
+  void appendTo(PrintStream ps) {
+    for (int i = 0; i < values.length; ++i) {
+      if (i != 0 && separator != null) {
+        ps.append(separator);
+      }
+      if (prefix != null) {
+        ps.append(prefix);
+      }
+      ps.append(values[i]);
+      if (suffix != null) {
+        ps.append(suffix);
+      }
+    }
+  }
+
+  private static String e2n(String s) {
+    return s == null || s.isEmpty() ? null : s;
+  }
+
+}
@@ -0,0 +1,200 @@
+package org.klojang.template;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+import static org.klojang.SysProp.SLOW_CALL_THRESHOLD;
+
+/*
+ * Dispatches the measurements made while parsing and rendering templates to the
+ * installed RenderMetrics listener and to Flight Recorder. The events follow the
+ * usual JFR idiom: an event object is created and immediately checked with
+ * isEnabled(), which the JIT reduces to a flag check when no recording is in
+ * progress. Measurements are only taken if the listener is installed or the
+ * event is enabled.
+ */
+final class Metrics {
+
+  static volatile RenderMetrics listener;
+
+  // Accessor and stringifier calls taking longer than this are reported
+  static final long SLOW_CALL_NANOS = SLOW_CALL_THRESHOLD.getInt() * 1000L;
+
+  // Stored as the creation time of a RenderSession whose lifetime is not measured
+  static final long NOT_TIMED = Long.MIN_VALUE;
+
+  @Name("org.klojang.TemplateParse")
+  @Label("Template Parse")
+  @Category("Klojang")
+  static final class ParseEvent extends Event {
+    @Label("Template")
+    String template;
+    @Label("Path")
+    String path;
+  }
+
+  @Name("org.klojang.TemplateCacheLookup")
+  @Label("Template Cache Lookup")
+  @Category("Klojang")
+  @StackTrace(false)
+  static final class CacheLookupEvent extends Event {
+    @Label("Path")
+    String path;
+    @Label("Hit")
+    boolean hit;
+  }
+
+  @Name("org.klojang.RenderSession")
+  @Label("Render Session")
+  @Description("Emitted when a render session is rendered for the first time")
+  @Category("Klojang")
+  static final class SessionEvent extends Event {
+    @Label("Template")
+    String template;
+    @Label("Lifetime")
+    @Timespan(Timespan.NANOSECONDS)
+    long lifetime;
+  }
+
+  @Name("org.klojang.NestedTemplateRender")
+  @Label("Nested Template Render")
+  @Category("Klojang")
+  @StackTrace(false)
+  static final class NestedRenderEvent extends Event {
+    @Label("Template")
+    String template;
+    @Label("Length")
+    @Description("The number of characters written")
+    int length;
+  }
+
+  @Name("org.klojang.SlowCall")
+  @Label("Slow Accessor or Stringifier")
+  @Category("Klojang")
+  static final class SlowCallEvent extends Event {
+    @Label("Template")
+    String template;
+    @Label("Name")
+    String name;
+    @Label("Stringifier")
+    @Description("Whether the call was to a stringifier rather than an accessor")
+    boolean stringifier;
+    @Label("Duration")
+    @Timespan(Timespan.NANOSECONDS)
+    long time;
+  }
+
+  private Metrics() {}
+
+  /*
+   * Inline templates are parsed as part of the template they are nested in, so
+   * they are only reported as part of that template.
+   */
+  static Template parse(Parser parser, boolean inline) throws ParseException {
+    RenderMetrics l = listener;
+    ParseEvent event = new ParseEvent();
+    if (inline || (l == null && !event.isEnabled())) {
+      return parser.doParse();
+    }
+    long start = System.nanoTime();
+    event.begin();
+    Template t = parser.doParse();
+    event.end();
+    if (event.shouldCommit()) {
+      event.template = t.getName();
+      event.path = t.getPath();
+      event.commit();
+    }
+    if (l != null) {
+      l.templateParsed(t, System.nanoTime() - start);
+    }
+    return t;
+  }
+
+  static void cacheLookup(Template t, boolean hit) {
+    RenderMetrics l = listener;
+    if (l != null) {
+      l.templateCacheLookup(t, hit);
+    }
+    CacheLookupEvent event = new CacheLookupEvent();
+    if (event.shouldCommit()) {
+      event.path = t.getPath();
+      event.hit = hit;
+      event.commit();
+    }
+  }
+
+  static long sessionCreated() {
+    if (listener == null && !new SessionEvent().isEnabled()) {
+      return NOT_TIMED;
+    }
+    return System.nanoTime();
+  }
+
+  static void sessionRendered(Template t, long created) {
+    if (created == NOT_TIMED) {
+      return;
+    }
+    long lifetime = System.nanoTime() - created;
+    RenderMetrics l = listener;
+    if (l != null) {
+      l.sessionRendered(t, lifetime);
+    }
+    SessionEvent event = new SessionEvent();
+    if (event.shouldCommit()) {
+      event.template = t.getLabel();
+      event.lifetime = lifetime;
+      event.commit();
+    }
+  }
+
+  static boolean isNestedRenderTimed(NestedRenderEvent event) {
+    return listener != null || event.isEnabled();
+  }
+
+  static void nestedRendered(NestedRenderEvent event, Template t, long start, int length) {
+    event.end();
+    RenderMetrics l = listener;
+    if (l != null) {
+      l.nestedTemplateRendered(t, System.nanoTime() - start, length);
+    }
+    if (event.shouldCommit()) {
+      event.template = t.getLabel();
+      event.length = length;
+      event.commit();
+    }
+  }
+
+  static boolean isCallTimed() {
+    return listener != null || new SlowCallEvent().isEnabled();
+  }
+
+  static void callEnded(Template t, String name, boolean stringifier, long start) {
+    long time = System.nanoTime() - start;
+    if (time < SLOW_CALL_NANOS) {
+      return;
+    }
+    RenderMetrics l = listener;
+    if (l != null) {
+      if (stringifier) {
+        l.slowStringifier(t, name, time);
+      } else {
+        l.slowAccessor(t, name, time);
+      }
+    }
+    SlowCallEvent event = new SlowCallEvent();
+    if (event.shouldCommit()) {
+      event.template = t.getLabel();
+      event.name = name;
+      event.stringifier = stringifier;
+      event.time = time;
+      event.commit();
+    }
+  }
+
+}
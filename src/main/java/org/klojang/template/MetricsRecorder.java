@@ -0,0 +1,276 @@
+package org.klojang.template;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+import static nl.naturalis.common.StringMethods.concat;
+
+/**
+ * A {@link RenderMetrics} implementation that keeps counters and histograms per
+ * template. Templates are identified by their path (or the path of the template
+ * they are nested in), followed by their fully-qualified name if they are nested
+ * templates. For example: {@code /views/employees.html#employees.address}. Templates
+ * created from a string are identified by their fully-qualified name only.
+ *
+ * <blockquote><pre>{@code
+ * MetricsRecorder recorder = new MetricsRecorder();
+ * RenderMetrics.install(recorder);
+ * // ... later ...
+ * recorder.getStats().forEach((template, stats) -> publish(template, stats));
+ * }</pre></blockquote>
+ *
+ * @author Ayco Holleman
+ */
+public final class MetricsRecorder implements RenderMetrics {
+
+  /**
+   * A histogram with exponentially growing buckets. Bucket <i>i</i> counts the
+   * values between 2<sup><i>i</i></sup> (inclusive) and 2<sup><i>i</i>+1</sup>
+   * (exclusive), except bucket 0, which also counts the value 0. Durations are
+   * recorded in nanoseconds.
+   */
+  public static final class Histogram {
+
+    private final AtomicLongArray buckets = new AtomicLongArray(64);
+    private final LongAdder count = new LongAdder();
+    private final LongAdder total = new LongAdder();
+    private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+    private Histogram() {}
+
+    /**
+     * Returns the number of recorded values.
+     *
+     * @return The number of recorded values
+     */
+    public long getCount() {
+      return count.sum();
+    }
+
+    /**
+     * Returns the sum of the recorded values.
+     *
+     * @return The sum of the recorded values
+     */
+    public long getTotal() {
+      return total.sum();
+    }
+
+    /**
+     * Returns the largest recorded value.
+     *
+     * @return The largest recorded value
+     */
+    public long getMax() {
+      return max.get();
+    }
+
+    /**
+     * Returns the number of values in the specified bucket.
+     *
+     * @param bucket The bucket (0 - 63)
+     * @return The number of values in the specified bucket
+     */
+    public long getBucket(int bucket) {
+      return buckets.get(bucket);
+    }
+
+    /**
+     * Returns an estimate of the specified percentile: the upper bound of the
+     * bucket containing the percentile.
+     *
+     * @param percentile The percentile (0 - 100)
+     * @return An estimate of the specified percentile
+     */
+    public long getPercentile(double percentile) {
+      long threshold = (long) Math.ceil(getCount() * percentile / 100);
+      long seen = 0;
+      for (int i = 0; i < 64; ++i) {
+        seen += buckets.get(i);
+        if (seen >= threshold && seen != 0) {
+          return Math.min(getMax(), i == 63 ? Long.MAX_VALUE : (1L << (i + 1)) - 1);
+        }
+      }
+      return 0;
+    }
+
+    @Override
+    public String toString() {
+      return concat("count=", getCount(), ", total=", getTotal(), ", max=", getMax());
+    }
+
+    private void record(long value) {
+      value = Math.max(0, value);
+      buckets.incrementAndGet(value == 0 ? 0 : 63 - Long.numberOfLeadingZeros(value));
+      count.increment();
+      total.add(value);
+      max.accumulate(value);
+    }
+  }
+
+  /**
+   * The counters and histograms for a single template.
+   */
+  public static final class TemplateStats {
+
+    private final LongAdder cacheHits = new LongAdder();
+    private final LongAdder cacheMisses = new LongAdder();
+    private final LongAdder slowAccessors = new LongAdder();
+    private final LongAdder slowStringifiers = new LongAdder();
+    private final Histogram parseTimes = new Histogram();
+    private final Histogram sessionLifetimes = new Histogram();
+    private final Histogram renderTimes = new Histogram();
+    private final Histogram renderLengths = new Histogram();
+
+    private TemplateStats() {}
+
+    /**
+     * Returns the number of times the template was found in the template cache.
+     *
+     * @return The number of cache hits
+     */
+    public long getCacheHits() {
+      return cacheHits.sum();
+    }
+
+    /**
+     * Returns the number of times the template was not found in the template cache.
+     *
+     * @return The number of cache misses
+     */
+    public long getCacheMisses() {
+      return cacheMisses.sum();
+    }
+
+    /**
+     * Returns the number of slow accessor calls made while populating the template.
+     *
+     * @return The number of slow accessor calls
+     */
+    public long getSlowAccessors() {
+      return slowAccessors.sum();
+    }
+
+    /**
+     * Returns the number of slow stringifier calls made while populating the
+     * template.
+     *
+     * @return The number of slow stringifier calls
+     */
+    public long getSlowStringifiers() {
+      return slowStringifiers.sum();
+    }
+
+    /**
+     * Returns the time it took to parse the template, in nanoseconds.
+     *
+     * @return The time it took to parse the template
+     */
+    public Histogram getParseTimes() {
+      return parseTimes;
+    }
+
+    /**
+     * Returns the time elapsed between the creation and the rendering of the render
+     * sessions for the template, in nanoseconds.
+     *
+     * @return The lifetime of the render sessions for the template
+     */
+    public Histogram getSessionLifetimes() {
+      return sessionLifetimes;
+    }
+
+    /**
+     * Returns the time it took to render the template as a nested template, in
+     * nanoseconds.
+     *
+     * @return The time it took to render the template as a nested template
+     */
+    public Histogram getRenderTimes() {
+      return renderTimes;
+    }
+
+    /**
+     * Returns the number of characters written when rendering the template as a
+     * nested template.
+     *
+     * @return The number of characters written
+     */
+    public Histogram getRenderLengths() {
+      return renderLengths;
+    }
+  }
+
+  private final Map<String, TemplateStats> stats = new ConcurrentHashMap<>();
+
+  /**
+   * Returns the counters and histograms for all templates for which something was
+   * recorded, keyed by the string identifying the template.
+   *
+   * @return The counters and histograms for all templates
+   */
+  public Map<String, TemplateStats> getStats() {
+    return Map.copyOf(stats);
+  }
+
+  /**
+   * Returns the counters and histograms for the specified template.
+   *
+   * @param template The template
+   * @return The counters and histograms for the specified template
+   */
+  public TemplateStats getStats(Template template) {
+    return stats(template);
+  }
+
+  /**
+   * Discards everything recorded so far.
+   */
+  public void reset() {
+    stats.clear();
+  }
+
+  @Override
+  public void templateParsed(Template template, long nanos) {
+    stats(template).parseTimes.record(nanos);
+  }
+
+  @Override
+  public void templateCacheLookup(Template template, boolean hit) {
+    if (hit) {
+      stats(template).cacheHits.increment();
+    } else {
+      stats(template).cacheMisses.increment();
+    }
+  }
+
+  @Override
+  public void sessionRendered(Template template, long lifetimeNanos) {
+    stats(template).sessionLifetimes.record(lifetimeNanos);
+  }
+
+  @Override
+  public void nestedTemplateRendered(Template template, long nanos, int length) {
+    TemplateStats ts = stats(template);
+    ts.renderTimes.record(nanos);
+    ts.renderLengths.record(length);
+  }
+
+  @Override
+  public void slowAccessor(Template template, String name, long nanos) {
+    stats(template).slowAccessors.increment();
+  }
+
+  @Override
+  public void slowStringifier(Template template, String varName, long nanos) {
+    stats(template).slowStringifiers.increment();
+  }
+
+  private TemplateStats stats(Template template) {
+    return stats.computeIfAbsent(template.getLabel(), k -> new TemplateStats());
+  }
+
+}
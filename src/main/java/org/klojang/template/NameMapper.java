@@ -1,7 +1,10 @@
 package org.klojang.template;
 
+import nl.naturalis.check.Check;
 import org.klojang.db.Row;
 
+import static nl.naturalis.check.CommonChecks.gt;
+
 /**
  * Generic name mapping interface. Name mappers are used to map template variable names to model
  * object properties. See {@link AccessorRegistry.Builder#setDefaultNameMapper(NameMapper)}. They
@@ -18,6 +21,37 @@ public interface NameMapper {
   /** The no-op mapper. Returns the name as-is. */
   public static NameMapper AS_IS = x -> x;
 
+  /**
+   * Returns a {@code NameMapper} that remembers the names mapped by the specified
+   * {@code NameMapper}, so that each name is mapped only once. Only use this for
+   * name mappers whose output depends on nothing but the name itself. At most 1024
+   * names are remembered. The name mappers in {@code org.klojang.util.namemappers}
+   * are cached automatically when passed to an {@link AccessorRegistry}.
+   *
+   * @param nameMapper The {@code NameMapper} to cache
+   * @return A caching {@code NameMapper}
+   */
+  public static NameMapper cached(NameMapper nameMapper) {
+    return cached(nameMapper, CachedNameMapper.DEFAULT_MAX_SIZE);
+  }
+
+  /**
+   * Returns a {@code NameMapper} that remembers at most {@code maxSize} names
+   * mapped by the specified {@code NameMapper}.
+   *
+   * @param nameMapper The {@code NameMapper} to cache
+   * @param maxSize The maximum number of names to remember
+   * @return A caching {@code NameMapper}
+   */
+  public static NameMapper cached(NameMapper nameMapper, int maxSize) {
+    Check.notNull(nameMapper, "nameMapper");
+    Check.that(maxSize, "maxSize").is(gt(), 0);
+    if (nameMapper == AS_IS || nameMapper instanceof CachedNameMapper) {
+      return nameMapper;
+    }
+    return new CachedNameMapper(nameMapper, maxSize);
+  }
+
   /**
    * Maps the specified name to a name that can be used to access its value.
    *
@@ -0,0 +1,56 @@
+package org.klojang.template;
+
+import static nl.naturalis.common.StringMethods.concat;
+
+/**
+ * A handle to a nested template, obtained through
+ * {@link Template#nestedSlot(String)}. A {@code NestedSlot} resolves the name of the
+ * nested template once, so that the {@link RenderSession} methods accepting a
+ * {@code NestedSlot} do not need to look up and validate the name over and over
+ * again. A {@code NestedSlot} is immutable and can be shared freely among threads
+ * and render sessions. It can only be used with render sessions for the template it
+ * was obtained from.
+ *
+ * @author Ayco Holleman
+ */
+public final class NestedSlot {
+
+  private final Template nested;
+
+  NestedSlot(Template nested) {
+    this.nested = nested;
+  }
+
+  /**
+   * Returns the template containing the nested template.
+   *
+   * @return The template containing the nested template
+   */
+  public Template getTemplate() {
+    return nested.getParent();
+  }
+
+  /**
+   * Returns the nested template itself.
+   *
+   * @return The nested template
+   */
+  public Template getNestedTemplate() {
+    return nested;
+  }
+
+  /**
+   * Returns the name of the nested template.
+   *
+   * @return The name of the nested template
+   */
+  public String getName() {
+    return nested.getName();
+  }
+
+  @Override
+  public String toString() {
+    return concat("NestedSlot[", TemplateUtils.getFQName(nested), "]");
+  }
+
+}
@@ -0,0 +1,152 @@
+package org.klojang.template;
+
+import nl.naturalis.check.Check;
+import org.klojang.KlojangRTException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+import static nl.naturalis.check.CommonChecks.gt;
+
+/**
+ * Specifies if and how a {@link RenderSession} or a {@link Renderable} may spread
+ * work over multiple threads. Parallelism only kicks in for nested templates that
+ * are repeated at least {@link #getThreshold() threshold} times. The repetitions
+ * are then split into chunks that are processed on a {@link ForkJoinPool}. The
+ * results are always combined in the original order, so the output is identical to
+ * the output produced by a single thread. For small lists the overhead of
+ * distributing the work will outweigh the gains, so choose the threshold with
+ * care.
+ *
+ * @author Ayco Holleman
+ * @see RenderSession#createRenderable(Parallelism)
+ * @see RenderSession#populate(String, Object, Parallelism)
+ */
+public final class Parallelism {
+
+  /**
+   * Disables parallelism. Everything will be done on the calling thread.
+   */
+  public static final Parallelism NONE = new Parallelism(Integer.MAX_VALUE,
+      ForkJoinPool.commonPool());
+
+  /**
+   * Returns a {@code Parallelism} instance that uses the
+   * {@link ForkJoinPool#commonPool() common pool} for nested templates repeated at
+   * least {@code threshold} times.
+   *
+   * @param threshold The minimum number of repetitions for parallelism to kick in
+   * @return A {@code Parallelism} instance
+   */
+  public static Parallelism withThreshold(int threshold) {
+    return withThreshold(threshold, ForkJoinPool.commonPool());
+  }
+
+  /**
+   * Returns a {@code Parallelism} instance that uses the specified pool for nested
+   * templates repeated at least {@code threshold} times.
+   *
+   * @param threshold The minimum number of repetitions for parallelism to kick in
+   * @param pool The {@code ForkJoinPool} to use
+   * @return A {@code Parallelism} instance
+   */
+  public static Parallelism withThreshold(int threshold, ForkJoinPool pool) {
+    Check.that(threshold, "threshold").is(gt(), 1);
+    Check.notNull(pool, "pool");
+    return new Parallelism(threshold, pool);
+  }
+
+  /*
+   * A unit of work on a range of repetitions (from inclusive, to exclusive).
+   */
+  @FunctionalInterface
+  interface RangeTask<T> {
+    T run(int from, int to) throws RenderException;
+  }
+
+  private final int threshold;
+  private final ForkJoinPool pool;
+
+  private Parallelism(int threshold, ForkJoinPool pool) {
+    this.threshold = threshold;
+    this.pool = pool;
+  }
+
+  /**
+   * Returns the minimum number of repetitions for parallelism to kick in.
+   *
+   * @return The minimum number of repetitions for parallelism to kick in
+   */
+  public int getThreshold() {
+    return threshold;
+  }
+
+  /**
+   * Returns the {@code ForkJoinPool} on which the work is executed.
+   *
+   * @return The {@code ForkJoinPool} on which the work is executed
+   */
+  public ForkJoinPool getPool() {
+    return pool;
+  }
+
+  boolean appliesTo(int repeats) {
+    return repeats >= threshold;
+  }
+
+  /*
+   * Splits the range [0, repeats) into chunks, executes the task for each chunk on
+   * the pool and returns the results in chunk order. If one or more chunks fail,
+   * the exception of the first failing chunk is thrown, which is the exception that
+   * would also have been thrown if everything had been done on a single thread.
+   */
+  <T> List<T> execute(int repeats, RangeTask<T> task) throws RenderException {
+    // Four chunks per thread to compensate a bit for chunks taking longer than others
+    int chunkSize = Math.max(1, repeats / (pool.getParallelism() * 4));
+    int chunks = (repeats + chunkSize - 1) / chunkSize;
+    // Exceptions are caught within the chunk itself, because the ForkJoinPool would
+    // otherwise wrap, and possibly even re-instantiate them.
+    Throwable[] errors = new Throwable[chunks];
+    List<ForkJoinTask<T>> tasks = new ArrayList<>(chunks);
+    for (int i = 0; i < chunks; ++i) {
+      int chunk = i;
+      int start = i * chunkSize;
+      int end = Math.min(repeats, start + chunkSize);
+      tasks.add(pool.submit(() -> {
+        try {
+          return task.run(start, end);
+        } catch (Throwable t) {
+          errors[chunk] = t;
+          return null;
+        }
+      }));
+    }
+    List<T> results = new ArrayList<>(chunks);
+    for (ForkJoinTask<T> t : tasks) {
+      try {
+        results.add(t.get());
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new KlojangRTException(e);
+      } catch (ExecutionException e) {
+        throw new KlojangRTException(e.getCause());
+      }
+    }
+    for (Throwable t : errors) {
+      if (t instanceof RenderException) {
+        throw (RenderException) t;
+      } else if (t instanceof RuntimeException) {
+        throw (RuntimeException) t;
+      } else if (t instanceof Error) {
+        throw (Error) t;
+      } else if (t != null) {
+        throw new KlojangRTException(t);
+      }
+    }
+    return results;
+  }
+
+}
@@ -4,6 +4,7 @@ import java.io.File;
 import java.util.*;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
+import org.klojang.SysProp;
 import org.klojang.x.tmpl.*;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -27,18 +28,29 @@ class Parser {
   private final String tmplName;
   private final TemplateId id;
   private final String src;
+  private final boolean minify;
 
   Parser(String tmplName, TemplateId id) throws PathResolutionException {
-    this(tmplName, id, id.getSource());
+    this(tmplName, id, id.getSource(), SysProp.MINIFY_HTML.getBoolean() && isHtml(id));
   }
 
   Parser(String tmplName, TemplateId id, String src) {
+    this(tmplName, id, src, false);
+  }
+
+  private Parser(String tmplName, TemplateId id, String src, boolean minify) {
     this.tmplName = tmplName;
     this.id = id;
     this.src = src;
+    this.minify = minify;
   }
 
   Template parse() throws ParseException {
+    boolean inline = !tmplName.equals(ROOT_TEMPLATE_NAME) && id.path() == null;
+    return Metrics.parse(this, inline);
+  }
+
+  Template doParse() throws ParseException {
     logParsing(tmplName, id);
     // Accumulates template names for duplicate checks:
     Set<String> namesInUse = new HashSet<>();
@@ -51,6 +63,10 @@ class Parser {
     parts = parse(parts, namesInUse, (x, y) -> parseVars(x, y, true));
     parts = parse(parts, namesInUse, (x, y) -> parseVars(x, y, false));
     parts = collectTextParts(parts);
+    parts = mergeTextParts(parts);
+    if (SysProp.DEDUPLICATE_TEXT.getBoolean()) {
+      parts = poolTextParts(parts);
+    }
     return new Template(tmplName, id, List.copyOf(parts));
   }
 
@@ -121,7 +137,7 @@ class Parser {
           .isNot(in(), names)
           .isNot(EQ(), ROOT_TEMPLATE_NAME);
       names.add(name);
-      Parser parser = new Parser(name, new TemplateId(id), mySrc);
+      Parser parser = new Parser(name, new TemplateId(id), mySrc, minify);
       parts.add(new InlineTemplatePart(parser.parse(), offset + m.start()));
       end = m.end();
     } while (m.find());
@@ -174,7 +190,7 @@ class Parser {
         newId = new TemplateId(path);
       }
       names.add(name);
-      Template nested = TemplateCache.INSTANCE.get(name, newId);
+      Template nested = TemplateCache.INSTANCE.getIncluded(name, newId);
       parts.add(new IncludedTemplatePart(nested, offset + m.start()));
       end = m.end();
     } while (m.find());
@@ -213,6 +229,7 @@ class Parser {
   /* Text parts are all unparsed parts that remain after everything else has been parsed out */
   private List<Part> collectTextParts(List<Part> in) throws ParseException {
     List<Part> out = new ArrayList<>(in.size());
+    HtmlMinifier minifier = minify ? new HtmlMinifier() : null;
     for (Part p : in) {
       if (p.getClass() == UnparsedPart.class) {
         UnparsedPart unparsed = (UnparsedPart) p;
@@ -223,6 +240,12 @@ class Parser {
             int idx = p.start() + unparsed.text().indexOf(Regex.PLACEHOLDER_TAG);
             throw PLACEHOLDER_NOT_CLOSED.asException(text, idx);
           }
+          if (minifier != null) {
+            text = minifier.minify(text);
+            if (text.isEmpty()) {
+              continue;
+            }
+          }
           out.add(new TextPart(text, p.start()));
         }
       } else {
@@ -232,6 +255,59 @@ class Parser {
     return out;
   }
 
+  /*
+   * Only templates read from an HTML file are minified. Whitespace is significant in
+   * just about any other format (CSV, fixed-width text, ...), and templates created
+   * from a string give no indication of their format.
+   */
+  private static boolean isHtml(TemplateId id) {
+    if (id.path() == null) {
+      return false;
+    }
+    String path = id.path().toLowerCase(Locale.ROOT);
+    return path.endsWith(".html") || path.endsWith(".htm") || path.endsWith(".xhtml");
+  }
+
+  /*
+   * Purging ditch blocks and placeholders may leave adjacent text parts. Merge them
+   * so they get rendered using a single write.
+   */
+  private static List<Part> mergeTextParts(List<Part> in) {
+    List<Part> out = new ArrayList<>(in.size());
+    TextPart prev = null;
+    for (Part p : in) {
+      if (p.getClass() == TextPart.class) {
+        if (prev != null) {
+          prev = new TextPart(prev.getText() + ((TextPart) p).getText(), prev.start());
+          out.set(out.size() - 1, prev);
+          continue;
+        }
+        prev = (TextPart) p;
+      } else {
+        prev = null;
+      }
+      out.add(p);
+    }
+    return out;
+  }
+
+  /*
+   * Replaces the text parts with parts sharing their text with identical text parts
+   * in previously parsed templates.
+   */
+  private static List<Part> poolTextParts(List<Part> in) {
+    List<Part> out = new ArrayList<>(in.size());
+    for (Part p : in) {
+      if (p.getClass() == TextPart.class) {
+        TextPart tp = (TextPart) p;
+        out.add(new TextPart(TextBlock.pooled(tp.getText()), tp.start()));
+      } else {
+        out.add(p);
+      }
+    }
+    return out;
+  }
+
   private void checkGarbage(UnparsedPart unparsed) throws ParseException {
     String str = unparsed.text();
     int off = unparsed.start();
@@ -78,6 +78,59 @@ public class RenderException extends KlojangException {
     return new RenderException(format(fmt, fqn));
   }
 
+  /**
+   * Thrown when attempting to populate a template in multiple passes while it is (or is to be)
+   * populated from an {@code Iterator}, {@code Stream} or {@link LazyIterable}. These data
+   * sources are only consumed when the template is rendered, and can only be specified in a
+   * single pass.
+   */
+  public static Function<String, RenderException> lazyMultiPass(Template t) {
+    String fqn = TemplateUtils.getFQName(t);
+    String fmt =
+        "Template %s populated from Iterator, Stream or LazyIterable. Multi-pass population not "
+            + "allowed";
+    return s -> new RenderException(format(fmt, fqn));
+  }
+
+  /**
+   * Thrown when calling {@link Renderable#getETag()} while the template, or any of its nested
+   * templates, is populated from an {@code Iterator}, a {@code Stream} or a {@link
+   * java.sql.ResultSet}. These data sources can be walked only once, so the template could not be
+   * rendered anymore once the ETag has been computed.
+   */
+  public static RenderException singleUseSource(Template t) {
+    String fqn = TemplateUtils.getFQName(t);
+    String fmt =
+        "Cannot compute ETag without rendering: template %s is populated from an Iterator, Stream "
+            + "or ResultSet, which can be walked only once. Use renderWithETag() or populate the "
+            + "template from a LazyIterable";
+    return new RenderException(format(fmt, fqn));
+  }
+
+  /**
+   * Thrown by a {@link TemplateBinder} or a {@link CompiledLayout} if the data for a nested
+   * template is an {@code Iterator}, a {@code Stream}, a {@link LazyIterable} or a {@link
+   * java.sql.ResultSet}. These are only supported by {@link
+   * RenderSession#populate(String, Object, String...) RenderSession.populate}.
+   */
+  public static RenderException lazySourceNotBindable(Template t, Object data) {
+    String fqn = TemplateUtils.getFQName(t);
+    String fmt =
+        "Cannot render template %s from %s. TemplateBinder and CompiledLayout require an object, "
+            + "an array or a Collection. Use RenderSession.populate for lazy data sources";
+    return new RenderException(format(fmt, fqn, data.getClass().getName()));
+  }
+
+  /**
+   * Thrown when attempting to populate a template that contains nested templates using a {@link
+   * java.sql.ResultSet}.
+   */
+  public static Function<String, RenderException> notLeafTemplate(Template t) {
+    String fqn = TemplateUtils.getFQName(t);
+    String fmt = "Template %s contains nested templates and cannot be populated from a ResultSet";
+    return s -> new RenderException(format(fmt, fqn));
+  }
+
   /** */
   public static Function<String, RenderException> notTextOnly(Template t) {
     String fqn = TemplateUtils.getFQName(t);
@@ -148,6 +201,16 @@ public class RenderException extends KlojangException {
     return s -> new RenderException(format(fmt, fqn));
   }
 
+  /**
+   * Thrown when passing a {@link VarSlot} or {@link NestedSlot} to a {@link RenderSession}
+   * for a template other than the one the slot was obtained from.
+   */
+  public static RenderException foreignSlot(Template t, Object slot) {
+    String fqn = TemplateUtils.getFQName(t);
+    String fmt = "Not a slot of template %s: %s";
+    return new RenderException(format(fmt, fqn, slot));
+  }
+
   /** Generic error condition, usually akin to an {@link IllegalArgumentException}. */
   public static Function<String, RenderException> illegalValue(String name, Object value) {
     String fmt = "Illegal value for \"%s\": %s";
@@ -0,0 +1,108 @@
+package org.klojang.template;
+
+/**
+ * A listener that is notified of what happens while templates are parsed and
+ * rendered, so the numbers can be fed into a monitoring system. All methods have an
+ * empty default implementation, so you only need to implement the ones you are
+ * interested in. Klojang comes with one implementation, the
+ * {@link MetricsRecorder}, which keeps counters and histograms per template. A
+ * listener is installed globally, through {@link #install(RenderMetrics)}. When no
+ * listener is installed (the default), nothing is measured.
+ *
+ * <p>The same events are also emitted as JDK Flight Recorder events (in the
+ * "Klojang" category), independently of whether a listener is installed. They only
+ * cost something while a recording that enables them is in progress.
+ *
+ * <p>Listeners receive the {@link Template} itself. The {@code MetricsRecorder}
+ * keys its counters by the path of the template plus its fully-qualified name
+ * (e.g. {@code /views/employees.html#employees.address}) rather than by the
+ * template's source, since all templates nested inside the same file share one
+ * source, and templates created from a string have none. The Flight Recorder
+ * events carry the same key.
+ *
+ * <p>Implementations must be thread-safe and fast, as they are called on the
+ * threads doing the rendering.
+ *
+ * @author Ayco Holleman
+ */
+public interface RenderMetrics {
+
+  /**
+   * Installs the specified listener, replacing the one that was installed before.
+   * Specify {@code null} to stop the collection of metrics.
+   *
+   * @param listener The listener, or {@code null}
+   */
+  static void install(RenderMetrics listener) {
+    Metrics.listener = listener;
+  }
+
+  /**
+   * Returns the currently installed listener, or {@code null} if none is installed.
+   *
+   * @return The currently installed listener
+   */
+  static RenderMetrics installed() {
+    return Metrics.listener;
+  }
+
+  /**
+   * Called after a template has been parsed. Inline templates (defined inside the
+   * template using {@code ~%%begin:foo%}) are not reported separately; the time it
+   * took to parse them is included in the time reported for the enclosing template.
+   * Included templates are reported separately, before the template that includes
+   * them, unless they were found in the template cache.
+   *
+   * @param template The template
+   * @param nanos The time it took to parse the template
+   */
+  default void templateParsed(Template template, long nanos) {}
+
+  /**
+   * Called when a template is retrieved from the template cache.
+   *
+   * @param template The template
+   * @param hit Whether the template was found in the cache, rather than loaded and
+   *     parsed
+   */
+  default void templateCacheLookup(Template template, boolean hit) {}
+
+  /**
+   * Called when a {@link RenderSession} is rendered for the first time.
+   *
+   * @param template The template of the {@code RenderSession}
+   * @param lifetimeNanos The time elapsed between the creation of the
+   *     {@code RenderSession} and the moment it was rendered
+   */
+  default void sessionRendered(Template template, long lifetimeNanos) {}
+
+  /**
+   * Called after all repetitions of a nested template have been rendered.
+   *
+   * @param template The nested template
+   * @param nanos The time it took to render the nested template
+   * @param length The number of characters written
+   */
+  default void nestedTemplateRendered(Template template, long nanos, int length) {}
+
+  /**
+   * Called when an {@link Accessor} took longer than the
+   * {@link org.klojang.SysProp#SLOW_CALL_THRESHOLD threshold} to retrieve a value.
+   *
+   * @param template The template being populated
+   * @param name The name of the variable or nested template
+   * @param nanos The time it took to retrieve the value
+   */
+  default void slowAccessor(Template template, String name, long nanos) {}
+
+  /**
+   * Called when a {@link Stringifier} took longer than the
+   * {@link org.klojang.SysProp#SLOW_CALL_THRESHOLD threshold} to stringify a value.
+   *
+   * @param template The template being populated
+   * @param varName The name of the variable
+   * @param nanos The time it took to stringify the value
+   */
+  default void slowStringifier(Template template, String varName, long nanos) {}
+
+}
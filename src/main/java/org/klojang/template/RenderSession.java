@@ -7,11 +7,13 @@ import nl.naturalis.common.io.UnsafeByteArrayOutputStream;
 
 import java.io.OutputStream;
 import java.nio.charset.StandardCharsets;
+import java.sql.ResultSet;
 import java.util.*;
 import java.util.function.Predicate;
 
 import static java.util.Collections.singletonMap;
 import static java.util.stream.Collectors.toList;
+import static java.util.stream.Collectors.toUnmodifiableList;
 import static nl.naturalis.common.ArrayMethods.EMPTY_STRING_ARRAY;
 import static nl.naturalis.common.CollectionMethods.asList;
 import static nl.naturalis.common.ObjectMethods.*;
@@ -54,10 +56,12 @@ public class RenderSession {
 
   private final SessionConfig config;
   private final RenderState state;
+  private final long created;
 
   RenderSession(SessionConfig config) {
     this.config = config;
     this.state = new RenderState(config);
+    this.created = Metrics.sessionCreated();
   }
 
   /* METHODS FOR SETTING A SINGLE TEMPLATE VARIABLE */
@@ -109,17 +113,57 @@ public class RenderSession {
       // and process it as it is meant to be processed (namely: not).
       return this;
     }
-    IntList indices = config.getTemplate().getVarPartIndices().get(varName);
+    setVar(t.getVarSlot(varName), value, defaultGroup);
+    return this;
+  }
+
+  /**
+   * Sets the variable identified by the specified handle to the specified value.
+   * Equivalent to {@link #set(VarSlot, Object, VarGroup) set(slot, value, null)}.
+   *
+   * @param slot The handle to the variable, obtained through
+   *     {@link Template#slot(String)}
+   * @param value The value of the variable
+   * @return This {@code RenderSession}
+   * @throws RenderException
+   */
+  public RenderSession set(VarSlot slot, Object value) throws RenderException {
+    return set(slot, value, (VarGroup) null);
+  }
+
+  /**
+   * Sets the variable identified by the specified handle to the specified value.
+   * Behaves just like {@link #set(String, Object, VarGroup)}, but without having to
+   * look up the variable by name.
+   *
+   * @param slot The handle to the variable, obtained through
+   *     {@link Template#slot(String)}
+   * @param value The value of the variable
+   * @param defaultGroup The variable group to assign the variable to if the
+   *     variable has no group name prefix. May be {@code null}.
+   * @return This {@code RenderSession}
+   * @throws RenderException
+   */
+  public RenderSession set(VarSlot slot, Object value, VarGroup defaultGroup)
+      throws RenderException {
+    checkWritable(slot);
+    if (value != UNDEFINED) {
+      setVar(slot, value, defaultGroup);
+    }
+    return this;
+  }
+
+  private void setVar(VarSlot slot, Object value, VarGroup defaultGroup)
+      throws RenderException {
+    List<Part> parts = config.getTemplate().getParts();
     StringifierRegistry sf = config.getStringifiers();
-    for (int i = 0; i < indices.size(); ++i) {
-      int partIndex = indices.get(i);
-      VariablePart part = t.getPart(partIndex);
+    for (int partIndex : slot.getPartIndices()) {
+      VariablePart part = (VariablePart) parts.get(partIndex);
       Stringifier stringifier = sf.getStringifier(part, defaultGroup, value);
-      String stringified = stringify(stringifier, varName, value);
+      String stringified = stringify(stringifier, slot.getName(), value);
       state.setVar(partIndex, new String[] {stringified});
     }
-    state.done(varName);
-    return this;
+    state.done(slot);
   }
 
   /**
@@ -234,57 +278,146 @@ public class RenderSession {
       String prefix,
       String separator,
       String suffix) throws RenderException {
+    return set(varName, values, defaultGroup, prefix, separator, suffix, Parallelism.NONE);
+  }
+
+  /**
+   * Sets the specified variable to the concatenation of the values within the
+   * specified {@code List}, stringifying the values in parallel if the size of the
+   * {@code List} reaches the {@link Parallelism#getThreshold() threshold} of the
+   * {@code Parallelism} argument. The result is identical to the result of
+   * {@link #set(String, List, VarGroup, String, String, String)}. If stringification
+   * fails for more than one value, the {@code RenderException} for the first of
+   * them is thrown.
+   *
+   * @param varName The name of the variable to set
+   * @param values The string values to concatenate
+   * @param defaultGroup The variable group to assign the variable to if the
+   *     variable has no group name prefix. May be {@code null}.
+   * @param prefix The prefix to use for each string
+   * @param separator The suffix to use for each string
+   * @param suffix The separator to use between the stringd
+   * @param parallelism Specifies when and how to stringify the values in
+   *     parallel
+   * @return This {@code RenderSession}
+   * @throws RenderException
+   */
+  public RenderSession set(String varName,
+      List<?> values,
+      VarGroup defaultGroup,
+      String prefix,
+      String separator,
+      String suffix,
+      Parallelism parallelism) throws RenderException {
     Check.on(frozenSession(), state.isFrozen()).is(no());
+    Check.notNull(parallelism, "parallelism");
     Check.notNull(varName, "varName");
     Check.notNull(values, "values");
     Template t = config.getTemplate();
     Check.that(t.getVariables()).is(contains(), varName, noSuchVariable(t, varName));
     Check.on(alreadySet(t, varName), state.isSet(varName)).is(no());
-    IntList indices = config.getTemplate().getVarPartIndices().get(varName);
-    if (values.isEmpty()) {
-      indices.forEach(i -> state.setVar(i, EMPTY_STRING_ARRAY));
-    } else {
-      indices.forEachThrowing(i -> setVar(i,
-          values,
-          defaultGroup,
-          prefix,
-          separator,
-          suffix));
-    }
-    state.done(varName);
+    setVar(t.getVarSlot(varName),
+        values,
+        defaultGroup,
+        prefix,
+        separator,
+        suffix,
+        parallelism);
     return this;
   }
 
+  /**
+   * Sets the variable identified by the specified handle to the concatenation of
+   * the values within the specified {@code List}. Equivalent to
+   * {@link #set(String, List)}, but without having to look up the variable by name.
+   *
+   * @param slot The handle to the variable, obtained through
+   *     {@link Template#slot(String)}
+   * @param values The string values to concatenate
+   * @return This {@code RenderSession}
+   * @throws RenderException
+   */
+  public RenderSession set(VarSlot slot, List<?> values) throws RenderException {
+    return set(slot, values, null, null, null, null);
+  }
+
+  /**
+   * Sets the variable identified by the specified handle to the concatenation of
+   * the values within the specified {@code List}. Equivalent to
+   * {@link #set(String, List, VarGroup, String, String, String)}, but without having
+   * to look up the variable by name.
+   *
+   * @param slot The handle to the variable, obtained through
+   *     {@link Template#slot(String)}
+   * @param values The string values to concatenate
+   * @param defaultGroup The variable group to assign the variable to if the
+   *     variable has no group name prefix. May be {@code null}.
+   * @param prefix The prefix to use for each string
+   * @param separator The separator to use between the strings
+   * @param suffix The suffix to use for each string
+   * @return This {@code RenderSession}
+   * @throws RenderException
+   */
+  public RenderSession set(VarSlot slot,
+      List<?> values,
+      VarGroup defaultGroup,
+      String prefix,
+      String separator,
+      String suffix) throws RenderException {
+    checkWritable(slot);
+    Check.notNull(values, "values");
+    setVar(slot, values, defaultGroup, prefix, separator, suffix, Parallelism.NONE);
+    return this;
+  }
+
+  private void setVar(VarSlot slot,
+      List<?> values,
+      VarGroup defGroup,
+      String prefix,
+      String separator,
+      String suffix,
+      Parallelism parallelism) throws RenderException {
+    for (int partIndex : slot.getPartIndices()) {
+      if (values.isEmpty()) {
+        state.setVar(partIndex, EMPTY_STRING_ARRAY);
+      } else {
+        setVar(partIndex, values, defGroup, prefix, separator, suffix, parallelism);
+      }
+    }
+    state.done(slot);
+  }
+
   private void setVar(int partIndex,
       List<?> values,
       VarGroup defGroup,
       String prefix,
       String separator,
-      String suffix) throws RenderException {
+      String suffix,
+      Parallelism parallelism) throws RenderException {
     VariablePart part = config.getTemplate().getPart(partIndex);
     VarGroup varGroup = part.getVarGroup().orElse(defGroup);
-    prefix = n2e(prefix);
-    separator = n2e(separator);
-    suffix = n2e(suffix);
-    boolean enrich = !prefix.isEmpty() || !separator.isEmpty() || !suffix.isEmpty();
     StringifierRegistry sf = config.getStringifiers();
     // Find first non-null value to increase the chance that we find a suitable
     // stringifier:
     Object any = values.stream().filter(notNull()).findFirst().orElse(null);
     Stringifier stringifier = sf.getStringifier(part, varGroup, any);
     String[] stringified = new String[values.size()];
-    for (int i = 0; i < values.size(); ++i) {
-      String s = stringify(stringifier, part.getName(), values.get(i));
-      if (enrich) {
-        if (i == 0) {
-          s = prefix + s + suffix;
-        } else {
-          s = separator + prefix + s + suffix;
-        }
+    Parallelism.RangeTask<Void> task = (from, to) -> {
+      for (int i = from; i < to; ++i) {
+        stringified[i] = stringify(stringifier, part.getName(), values.get(i));
       }
-      stringified[i] = s;
+      return null;
+    };
+    if (parallelism.appliesTo(values.size())) {
+      parallelism.execute(values.size(), task);
+    } else {
+      task.run(0, values.size());
+    }
+    if (isEmpty(prefix) && isEmpty(separator) && isEmpty(suffix)) {
+      state.setVar(partIndex, stringified);
+    } else {
+      state.setVar(partIndex, new ListValue(stringified, prefix, separator, suffix));
     }
-    state.setVar(partIndex, stringified);
   }
 
   /**
@@ -312,6 +445,28 @@ public class RenderSession {
     return this;
   }
 
+  /**
+   * Sets the variable identified by the specified handle to the entire output of
+   * the specified {@code Renderable}. Equivalent to
+   * {@link #paste(String, Renderable)}, but without having to look up the variable
+   * by name.
+   *
+   * @param slot The handle to the variable, obtained through
+   *     {@link Template#slot(String)}
+   * @param renderable The {@code Renderable}
+   * @return This {@code RenderSession}
+   * @throws RenderException
+   */
+  public RenderSession paste(VarSlot slot, Renderable renderable)
+      throws RenderException {
+    checkWritable(slot);
+    Check.on(illegalValue("renderable", renderable), renderable).is(notNull());
+    for (int partIndex : slot.getPartIndices()) {
+      state.setVar(partIndex, renderable);
+    }
+    return this;
+  }
+
   /* METHODS FOR POPULATING A SINGLE NESTED TEMPLATE */
 
   /**
@@ -345,6 +500,44 @@ public class RenderSession {
    * used, for example, to generate an HTML table from a nested template that
    * contains just a single row.
    *
+   * <h4>Lazy Data Sources</h4>
+   *
+   * <p>If the specified object is an {@code Iterator}, a {@code Stream} or a
+   * {@link LazyIterable}, it is not consumed right away, but only when the template
+   * is rendered. Each element is then inserted into a single, re-used child session,
+   * rendered, and discarded. This allows you to render, for example, millions of
+   * rows in constant memory. An {@code Iterator} or {@code Stream} can be rendered
+   * only once, and a template populated this way cannot be populated in multiple
+   * passes. Text-only templates are the exception: for them only the number of
+   * elements matters, so the data source is counted right away and the output can be
+   * rendered any number of times. Since rendering happens after {@code populate} has
+   * returned, errors occurring while populating the template with the elements are
+   * thrown from the render methods, as a {@link org.klojang.KlojangRTException}
+   * wrapping the {@code RenderException}. Any other {@code Iterable} that is not a
+   * {@code Collection} is treated as a single source data object, so wrap it in a
+   * {@code LazyIterable} to have it rendered lazily.
+   *
+   * <h4>ResultSets</h4>
+   *
+   * <p>If the specified object is a {@link ResultSet}, the template's variables are
+   * bound to the columns of the {@code ResultSet}, using the
+   * {@link AccessorRegistry.Builder#setNameMapper(Template, NameMapper) NameMapper}
+   * for the template to map variable names to column labels. As with other lazy
+   * data sources, the rows are only read when the template is rendered. They are
+   * then streamed straight from the {@code ResultSet}, through the stringifiers,
+   * into the output, without being converted to {@link org.klojang.db.Row rows} or
+   * JavaBeans first. The template must not itself contain nested templates. The
+   * {@code ResultSet} is not closed once it is exhausted.
+   *
+   * <h4>Fragment Caching</h4>
+   *
+   * <p>If the {@code RenderSession} was created with a {@link FragmentCache} and a
+   * {@link CacheKeyFunction} was registered for the nested template, the cache key
+   * is determined for each of the source data objects. Repetitions for which the
+   * output is already in the cache are not populated at all. Note that this also
+   * holds for any subsequent calls to {@code populate} for the same nested template
+   * (multi-pass population).
+   *
    * <h4>Conditional Rendering</h4>
    *
    * <p>If the specified object is an empty array or an empty {@code Collection},
@@ -370,26 +563,183 @@ public class RenderSession {
       Object sourceData,
       VarGroup defaultGroup,
       String... names) throws RenderException {
+    return populate(nestedTemplateName,
+        sourceData,
+        defaultGroup,
+        Parallelism.NONE,
+        names);
+  }
+
+  /**
+   * Populates a <i>nested</i> template, populating its repetitions in parallel if
+   * the size of the specified array or {@code Collection} reaches the
+   * {@link Parallelism#getThreshold() threshold} of the {@code Parallelism}
+   * argument. Equivalent to
+   * {@link #populate(String, Object, VarGroup, Parallelism, String...)
+   * populate(nestedTemplateName, sourceData, null, parallelism)}.
+   *
+   * @param nestedTemplateName The name of the nested template
+   * @param sourceData An object that provides data for all or some of the nested
+   *     template's variables and nested templates
+   * @param parallelism Specifies when and how to populate the template in
+   *     parallel
+   * @return This {@code RenderSession}
+   * @throws RenderException
+   */
+  public RenderSession populate(String nestedTemplateName,
+      Object sourceData,
+      Parallelism parallelism) throws RenderException {
+    return populate(nestedTemplateName, sourceData, null, parallelism);
+  }
+
+  /**
+   * Populates a <i>nested</i> template, populating its repetitions in parallel if
+   * the size of the specified array or {@code Collection} reaches the
+   * {@link Parallelism#getThreshold() threshold} of the {@code Parallelism}
+   * argument. Each worker thread populates a disjoint range of repetitions. The
+   * result is identical to the result of
+   * {@link #populate(String, Object, VarGroup, String...)}. If populating fails for
+   * more than one repetition, the {@code RenderException} for the first of them is
+   * thrown. Note that the {@link Accessor accessors} and
+   * {@link Stringifier stringifiers} you registered must be thread-safe in order to
+   * use this method.
+   *
+   * @param nestedTemplateName The name of the nested template
+   * @param sourceData An object that provides data for all or some of the nested
+   *     template's variables and nested templates
+   * @param defaultGroup The variable group to assign the variables to if they
+   *     have no group name prefix. May be {@code null}.
+   * @param parallelism Specifies when and how to populate the template in
+   *     parallel
+   * @param names The names of the variables and doubly-nested templates that you
+   *     want to be populated using the specified data object
+   * @return This {@code RenderSession}
+   * @throws RenderException
+   */
+  public RenderSession populate(String nestedTemplateName,
+      Object sourceData,
+      VarGroup defaultGroup,
+      Parallelism parallelism,
+      String... names) throws RenderException {
     Check.on(frozenSession(), state.isFrozen()).is(no());
+    Check.notNull(parallelism, "parallelism");
     if (sourceData == UNDEFINED) {
       return this;
     }
     Template t = getNestedTemplate(nestedTemplateName);
+    return populate(t, sourceData, defaultGroup, parallelism, names);
+  }
+
+  /**
+   * Populates the nested template identified by the specified handle. Equivalent to
+   * {@link #populate(NestedSlot, Object, VarGroup, String...) populate(slot,
+   * sourceData, null, names)}.
+   *
+   * @param slot The handle to the nested template, obtained through
+   *     {@link Template#nestedSlot(String)}
+   * @param sourceData An object that provides data for all or some of the nested
+   *     template's variables and nested templates
+   * @param names The names of the variables and doubly-nested templates that you
+   *     want to be populated using the specified data object
+   * @return This {@code RenderSession}
+   * @throws RenderException
+   */
+  public RenderSession populate(NestedSlot slot, Object sourceData, String... names)
+      throws RenderException {
+    return populate(slot, sourceData, null, names);
+  }
+
+  /**
+   * Populates the nested template identified by the specified handle. Behaves just
+   * like {@link #populate(String, Object, VarGroup, String...)}, but without having
+   * to look up the nested template by name.
+   *
+   * @param slot The handle to the nested template, obtained through
+   *     {@link Template#nestedSlot(String)}
+   * @param sourceData An object that provides data for all or some of the nested
+   *     template's variables and nested templates
+   * @param defaultGroup The variable group to assign the variables to if they
+   *     have no group name prefix. May be {@code null}.
+   * @param names The names of the variables and doubly-nested templates that you
+   *     want to be populated using the specified data object
+   * @return This {@code RenderSession}
+   * @throws RenderException
+   */
+  public RenderSession populate(NestedSlot slot,
+      Object sourceData,
+      VarGroup defaultGroup,
+      String... names) throws RenderException {
+    checkWritable(slot);
+    if (sourceData == UNDEFINED) {
+      return this;
+    }
+    return populate(slot.getNestedTemplate(),
+        sourceData,
+        defaultGroup,
+        Parallelism.NONE,
+        names);
+  }
+
+  private RenderSession populate(Template t,
+      Object sourceData,
+      VarGroup defaultGroup,
+      Parallelism parallelism,
+      String... names) throws RenderException {
+    LazySource source = null;
+    if (sourceData instanceof ResultSet) {
+      Check.on(notLeafTemplate(t), t.countNestedTemplates()).is(eq(), 0);
+      ResultSet rs = (ResultSet) sourceData;
+      source = new ResultSetSource(t, rs, config, defaultGroup, names);
+    } else if (LazySource.isLazySource(sourceData)) {
+      source = new LazySource(t, sourceData, defaultGroup, names);
+    }
+    if (source != null) {
+      if (t.isTextOnly()) {
+        return show(source.count(), t);
+      }
+      state.setLazySource(t, source);
+      return this;
+    }
     List<?> data = asList(sourceData);
     if (t.isTextOnly()) {
       return show(data.size(), t);
     }
     Check.on(missingSourceData(t), data).is(deepNotNull());
-    return repeat(t, data, defaultGroup, names);
+    return repeat(t, data, defaultGroup, parallelism, names);
   }
 
   private RenderSession repeat(Template t,
       List<?> data,
       VarGroup defGroup,
+      Parallelism parallelism,
       String... names) throws RenderException {
-    RenderSession[] sessions = state.getOrCreateChildSessions(t, data.size());
-    for (int i = 0; i < sessions.length; ++i) {
-      sessions[i].insert(data.get(i), defGroup, names);
+    Parallelism.RangeTask<Void> task;
+    LeafColumns cols = null;
+    if (t.countNestedTemplates() == 0) {
+      cols = state.getOrCreateColumns(t, data.size());
+    }
+    if (cols != null) {
+      LeafColumns columns = cols;
+      task = (from, to) -> {
+        insert(columns, data, from, to, defGroup, names);
+        return null;
+      };
+    } else {
+      RenderSession[] sessions = state.getOrCreateChildSessions(t, data);
+      task = (from, to) -> {
+        for (int i = from; i < to; ++i) {
+          // null if the output was retrieved from the FragmentCache
+          if (sessions[i] != null) {
+            sessions[i].insert(data.get(i), defGroup, names);
+          }
+        }
+        return null;
+      };
+    }
+    if (parallelism.appliesTo(data.size())) {
+      parallelism.execute(data.size(), task);
+    } else {
+      task.run(0, data.size());
     }
     return this;
   }
@@ -675,24 +1025,16 @@ public class RenderSession {
   @SuppressWarnings("unchecked")
   private <T> void processVars(T data, VarGroup defGroup, String[] names)
       throws RenderException {
-    Set<String> varNames;
-    if (isEmpty(names)) {
-      varNames = config.getTemplate().getVariables();
-    } else {
-      varNames = new HashSet<>(config.getTemplate().getVariables());
-      varNames.retainAll(List.of(names));
-    }
+    Set<String> selected = isEmpty(names) ? null : new HashSet<>(List.of(names));
     Accessor<T> acc = (Accessor<T>) config.getAccessor(data);
-    for (String varName : varNames) {
-      if (!state.isSet(varName)) {
-        Object value;
-        try {
-          value = acc.access(data, varName);
-        } catch (RuntimeException e) {
-          throw accessException(config.getTemplate(), varName, e, data, acc);
-        }
+    for (VarSlot slot : config.getTemplate().getVarSlots()) {
+      if (selected != null && !selected.contains(slot.getName())) {
+        continue;
+      }
+      if (!state.isSet(slot)) {
+        Object value = access(config.getTemplate(), acc, data, slot.getName());
         if (value != UNDEFINED) {
-          set(varName, value, defGroup);
+          setVar(slot, value, defGroup);
         }
       }
     }
@@ -717,6 +1059,44 @@ public class RenderSession {
     }
   }
 
+  // Equivalent to calling insert on a child session for each of the
+  // elements in the list, but storing the values in columns.
+  @SuppressWarnings({"unchecked", "rawtypes"})
+  private void insert(LeafColumns cols,
+      List<?> data,
+      int from,
+      int to,
+      VarGroup defGroup,
+      String[] names) throws RenderException {
+    Template t = cols.getTemplate();
+    Set<String> varNames;
+    if (isEmpty(names)) {
+      varNames = t.getVariables();
+    } else {
+      varNames = new HashSet<>(t.getVariables());
+      varNames.retainAll(List.of(names));
+    }
+    StringifierRegistry sf = config.getStringifiers();
+    for (int i = from; i < to; ++i) {
+      Object obj = data.get(i);
+      Accessor acc = config.getAccessors().getAccessor(obj, t);
+      for (String varName : varNames) {
+        if (!cols.isSet(varName, i)) {
+          Object value = access(t, acc, obj, varName);
+          if (value != UNDEFINED) {
+            IntList indices = t.getVarPartIndices().get(varName);
+            for (int j = 0; j < indices.size(); ++j) {
+              int partIndex = indices.get(j);
+              VariablePart part = t.getPart(partIndex);
+              Stringifier stringifier = sf.getStringifier(part, defGroup, value);
+              cols.setValue(partIndex, i, stringify(t, stringifier, varName, value));
+            }
+          }
+        }
+      }
+    }
+  }
+
   /* MISCELLANEOUS METHODS */
 
   /**
@@ -750,6 +1130,21 @@ public class RenderSession {
     return state.getOrCreateChildSession(t);
   }
 
+  /**
+   * Returns a {@code RenderSession} for the nested template identified by the
+   * specified handle. Equivalent to {@link #in(String)}, but without having to look
+   * up the nested template by name.
+   *
+   * @param slot The handle to the nested template, obtained through
+   *     {@link Template#nestedSlot(String)}
+   * @return A child session that you can (and should) populate yourself
+   * @throws RenderException
+   */
+  public RenderSession in(NestedSlot slot) throws RenderException {
+    checkWritable(slot);
+    return state.getOrCreateChildSession(slot.getNestedTemplate());
+  }
+
   /**
    * Returns the child sessions that have been created for the specified nested
    * template. This method throws a {@code RenderException} if no child sessions have
@@ -763,9 +1158,34 @@ public class RenderSession {
       throws RenderException {
     Check.on(frozenSession(), state.isFrozen()).is(no());
     Template t = getNestedTemplate(nestedTemplateName);
+    state.materialize(t);
     RenderSession[] sessions = state.getChildSessions(t);
-    Check.on(noChildSessionsYet(t), t).is(notNull());
-    return List.of(sessions);
+    Check.on(noChildSessionsYet(t), sessions).is(notNull());
+    // Text-only templates and repetitions served from the FragmentCache
+    // do not have actual child sessions
+    return Arrays.stream(sessions).filter(notNull()).collect(toUnmodifiableList());
+  }
+
+  /**
+   * Discards the value of the specified variable, or everything that was done for
+   * the specified nested template, so that it can be set or populated again. This
+   * allows a {@code RenderSession} to be kept around, and be updated with fresh
+   * data, in combination with an {@link IncrementalRenderer}.
+   *
+   * @param name The name of a variable or nested template
+   * @return This {@code RenderSession}
+   * @throws RenderException
+   */
+  public RenderSession unset(String name) throws RenderException {
+    Check.on(frozenSession(), state.isFrozen()).is(no());
+    Check.notNull(name, "name");
+    Template t = config.getTemplate();
+    if (t.getVarSlot(name) != null) {
+      state.unsetVar(t.getVarSlot(name));
+    } else {
+      state.unsetTemplate(getNestedTemplate(name));
+    }
+    return this;
   }
 
   /* RENDER METHODS */
@@ -781,6 +1201,24 @@ public class RenderSession {
     return state.isFullyPopulated();
   }
 
+  /**
+   * Returns an estimate of the number of bytes of heap memory retained by this
+   * {@code RenderSession} and its child sessions: the stringified values of the
+   * variables, the child sessions created for the nested templates, and the output
+   * of nested templates retrieved from a {@link FragmentCache}. The template itself
+   * is not included, as it is shared by all sessions rendering it (see
+   * {@link TemplateUtils#estimateFootprint(Template)}). Neither are the objects
+   * passed to {@link #paste(String, Renderable) paste} and the lazy data sources,
+   * which are not owned by the session. The estimate assumes a 64-bit JVM with
+   * compressed object pointers.
+   *
+   * @return An estimate of the number of bytes retained by this
+   *     {@code RenderSession}
+   */
+  public long estimateRetainedSize() {
+    return FootprintEstimator.estimate(state);
+  }
+
   /**
    * Returns a {@code Renderable} instance that allows you to render the current
    * template over and over again. See {@link #paste(String, Renderable)}.
@@ -788,13 +1226,43 @@ public class RenderSession {
    * @return A {@code Renderable} instance allows you to render the current template
    */
   public Renderable createRenderable() {
-    state.freeze();
+    freeze();
     return new Renderer(state);
   }
 
   /**
-   * Writes the render result to the specified {@code OutputStream}. Shortcut for
-   * {@code createRenderable().render(out)}.
+   * Returns a {@code Renderable} instance that renders nested templates with many
+   * repetitions in parallel, as specified by the {@code Parallelism} argument. The
+   * output is identical to the output of a {@code Renderable} obtained through
+   * {@link #createRenderable()}.
+   *
+   * @param parallelism Specifies when and how to render in parallel
+   * @return A {@code Renderable} instance allows you to render the current template
+   */
+  public Renderable createRenderable(Parallelism parallelism) {
+    Check.notNull(parallelism, "parallelism");
+    freeze();
+    return new Renderer(state, parallelism);
+  }
+
+  /**
+   * Returns an {@link IncrementalRenderer} for this session. Contrary to
+   * {@link #createRenderable()}, this method does not freeze the session, so you
+   * can keep on {@link #unset(String) re-setting} its variables and re-populating
+   * its nested templates, and then have the {@code IncrementalRenderer} produce
+   * patches for just those parts of the output that have changed.
+   *
+   * @return An {@code IncrementalRenderer} for this session
+   * @throws RenderException
+   */
+  public IncrementalRenderer createIncrementalRenderer() throws RenderException {
+    Check.on(frozenSession(), state.isFrozen()).is(no());
+    return new IncrementalRenderer(state);
+  }
+
+  /**
+   * Writes the render result to the specified {@code OutputStream}, encoded as
+   * UTF-8. Shortcut for {@code createRenderable().render(out)}.
    *
    * @param out The output stream to which to write the render result
    * @throws RenderException
@@ -820,7 +1288,8 @@ public class RenderSession {
    * @return The render result
    */
   public String render() {
-    UnsafeByteArrayOutputStream out = new UnsafeByteArrayOutputStream(1024);
+    int size = Math.max(1024, config.getTemplate().getStaticLength());
+    UnsafeByteArrayOutputStream out = new UnsafeByteArrayOutputStream(size);
     createRenderable().render(out);
     return new String(out.toByteArray(), 0, out.size(), StandardCharsets.UTF_8);
   }
@@ -841,6 +1310,53 @@ public class RenderSession {
     return state;
   }
 
+  private void freeze() {
+    if (!state.isFrozen()) {
+      Metrics.sessionRendered(config.getTemplate(), created);
+    }
+    state.freeze();
+  }
+
+  // Retrieves a value using the specified accessor, timing the call if metrics
+  // are being collected
+  @SuppressWarnings({"unchecked", "rawtypes"})
+  static Object access(Template t, Accessor acc, Object data, String name)
+      throws RenderException {
+    long start = Metrics.isCallTimed() ? System.nanoTime() : Metrics.NOT_TIMED;
+    Object value;
+    try {
+      value = acc.access(data, name);
+    } catch (RuntimeException e) {
+      throw accessException(t, name, e, data, acc);
+    }
+    if (start != Metrics.NOT_TIMED) {
+      Metrics.callEnded(t, name, false, start);
+    }
+    return value;
+  }
+
+  /*
+   * Validates a slot passed to one of the handle-based methods. Uses plain checks
+   * rather than Check, because these methods are meant for hot paths.
+   */
+  private void checkWritable(VarSlot slot) throws RenderException {
+    if (state.isFrozen()) {
+      throw frozenSession().apply(null);
+    } else if (slot == null || slot.getTemplate() != config.getTemplate()) {
+      throw foreignSlot(config.getTemplate(), slot);
+    } else if (state.isSet(slot)) {
+      throw alreadySet(config.getTemplate(), slot.getName()).apply(null);
+    }
+  }
+
+  private void checkWritable(NestedSlot slot) throws RenderException {
+    if (state.isFrozen()) {
+      throw frozenSession().apply(null);
+    } else if (slot == null || slot.getTemplate() != config.getTemplate()) {
+      throw foreignSlot(config.getTemplate(), slot);
+    }
+  }
+
   private Template getNestedTemplate(String name) throws RenderException {
     Check.notNull(name, "nestedTemplateName");
     Check.on(noSuchTemplate(config.getTemplate(), name), name)
@@ -854,16 +1370,25 @@ public class RenderSession {
 
   private String stringify(Stringifier stringifier, String varName, Object value)
       throws RenderException {
+    return stringify(config.getTemplate(), stringifier, varName, value);
+  }
+
+  static String stringify(Template t,
+      Stringifier stringifier,
+      String varName,
+      Object value) throws RenderException {
+    long start = Metrics.isCallTimed() ? System.nanoTime() : Metrics.NOT_TIMED;
     try {
       String s = stringifier.toString(value);
       if (s == null) {
-        throw BadStringifierException.stringifierReturnedNull(config.getTemplate(),
-            varName);
+        throw BadStringifierException.stringifierReturnedNull(t, varName);
+      }
+      if (start != Metrics.NOT_TIMED) {
+        Metrics.callEnded(t, varName, true, start);
       }
       return s;
     } catch (NullPointerException e) {
-      throw BadStringifierException.stringifierNotNullResistant(config.getTemplate(),
-          varName);
+      throw BadStringifierException.stringifierNotNullResistant(t, varName);
     }
   }
 
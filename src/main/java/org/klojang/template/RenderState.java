@@ -1,29 +1,66 @@
 package org.klojang.template;
 
 import java.util.*;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import nl.naturalis.check.Check;
+import static org.klojang.template.RenderException.lazyMultiPass;
 import static org.klojang.template.RenderException.repetitionMismatch;
 import static org.klojang.template.TemplateUtils.getFQName;
 import static nl.naturalis.common.ObjectMethods.ifNotNull;
-import static nl.naturalis.check.CommonChecks.notNull;
+import static nl.naturalis.check.CommonChecks.no;
+import static nl.naturalis.check.CommonChecks.yes;
 
 class RenderState {
 
   private static final RenderSession[] ZERO_SESSIONS = new RenderSession[0];
   private static final RenderSession[] ONE_SESSION = new RenderSession[1];
 
+  private static final AtomicIntegerFieldUpdater<RenderState> PENDING =
+      AtomicIntegerFieldUpdater.newUpdater(RenderState.class, "pending");
+
   private final SessionConfig config;
-  private final Set<String> todo; // variables that have not been set yet
   private final Map<Template, RenderSession[]> sessions;
-  private final Map<Integer, Object> varValues;
+  // The values of the variables, indexed by part index: a String[], a ListValue or
+  // a Renderable
+  private final Object[] varValues;
+  // Whether the variables have been set, indexed by VarSlot ordinal
+  private final boolean[] varsSet;
+
+  // The state of the parent session. Null for the root session, and for the
+  // reusable child session of a LazySource, which is not part of the tree.
+  private RenderState parent;
+
+  // The number of things keeping this state from being fully populated: unset
+  // variables, child states that are not fully populated, and LeafColumns that are
+  // not fully populated. Whenever it drops to zero or rises from zero, the parent
+  // state is notified, so the root state always knows whether the entire tree is
+  // fully populated. Updated atomically, because the child sessions of a nested
+  // template may be populated in parallel.
+  private volatile int pending;
+
+  // Cache keys and output of nested templates whose output is cached by a
+  // FragmentCache. Only instantiated when they are actually needed.
+  private Map<Template, Object[]> cacheKeys;
+  private Map<Template, String[]> fragments;
 
+  // Compact storage for the repetitions of nested templates that contain
+  // variables only. See LeafColumns.
+  private Map<Template, LeafColumns> columns;
+
+  // Data sources that are only consumed at render time. See LazySource.
+  private Map<Template, LazySource> lazySources;
+
+  // Set when this state or any of its ancestors is frozen. Freezing pushes the
+  // flag down the tree, so checking it does not require walking up the tree.
   private boolean frozen;
 
   RenderState(SessionConfig config) {
     this.config = config;
     int sz = config.getTemplate().countNestedTemplates();
     this.sessions = new IdentityHashMap<>(sz);
-    this.varValues = new HashMap<>(sz);
-    this.todo = new HashSet<>(config.getTemplate().getVariables());
+    this.varValues = new Object[config.getTemplate().getParts().size()];
+    this.varsSet = new boolean[config.getTemplate().getVarSlots().length];
+    this.pending = varsSet.length;
   }
 
   SessionConfig getSessionConfig() {
@@ -35,6 +72,8 @@ class RenderState {
   }
 
   RenderSession[] getOrCreateChildSessions(Template t, int repeats) throws RenderException {
+    Check.on(lazyMultiPass(t), getLazySource(t) == null).is(yes());
+    materialize(t);
     RenderSession[] children = sessions.get(t);
     if (children == null) {
       if (repeats == 0) {
@@ -46,12 +85,144 @@ class RenderState {
         }
       }
       sessions.put(t, children);
+      adopt(children);
     } else if (children.length != repeats) {
       throw repetitionMismatch(config.getTemplate(), children, repeats);
     }
     return children;
   }
 
+  RenderSession[] getOrCreateChildSessions(Template t, List<?> data)
+      throws RenderException {
+    FragmentCache cache = config.getFragmentCache();
+    CacheKeyFunction keyFunction = cache == null ? null : cache.getKeyFunction(t);
+    Check.on(lazyMultiPass(t), getLazySource(t) == null).is(yes());
+    if (keyFunction == null) {
+      return getOrCreateChildSessions(t, data.size());
+    }
+    RenderSession[] children = sessions.get(t);
+    if (children == null) {
+      int repeats = data.size();
+      if (repeats == 0) {
+        children = ZERO_SESSIONS;
+      } else {
+        // For repetitions whose output is already in the cache, the
+        // RenderSession[] array will contain null
+        children = new RenderSession[repeats];
+        Object[] keys = new Object[repeats];
+        String[] output = new String[repeats];
+        for (int i = 0; i < repeats; ++i) {
+          keys[i] = keyFunction.getCacheKey(data.get(i));
+          if (keys[i] != null) {
+            output[i] = cache.get(t, keys[i]);
+          }
+          if (output[i] == null) {
+            children[i] = config.newChildSession(t);
+          }
+        }
+        if (cacheKeys == null) {
+          cacheKeys = new IdentityHashMap<>();
+          fragments = new IdentityHashMap<>();
+        }
+        cacheKeys.put(t, keys);
+        fragments.put(t, output);
+      }
+      sessions.put(t, children);
+      adopt(children);
+    } else if (children.length != data.size()) {
+      throw repetitionMismatch(config.getTemplate(), children, data.size());
+    }
+    return children;
+  }
+
+  /*
+   * Returns the LeafColumns object for the specified nested template, or null if
+   * the template must be populated through regular child sessions. As with
+   * text-only templates, the RenderSession[] array registered for the template
+   * will only contain null values; only its length matters.
+   */
+  LeafColumns getOrCreateColumns(Template t, int repeats) throws RenderException {
+    FragmentCache cache = config.getFragmentCache();
+    if (cache != null && cache.getKeyFunction(t) != null) {
+      return null;
+    }
+    Check.on(lazyMultiPass(t), getLazySource(t) == null).is(yes());
+    RenderSession[] children = sessions.get(t);
+    if (children == null) {
+      if (repeats == 0) {
+        sessions.put(t, ZERO_SESSIONS);
+        return null;
+      }
+      if (columns == null) {
+        columns = new IdentityHashMap<>();
+      }
+      LeafColumns cols = new LeafColumns(t, repeats, this);
+      columns.put(t, cols);
+      sessions.put(t, new RenderSession[repeats]);
+      if (!cols.isFullyPopulated()) {
+        addPending(1);
+      }
+      return cols;
+    } else if (children.length != repeats) {
+      throw repetitionMismatch(config.getTemplate(), children, repeats);
+    }
+    return getColumns(t);
+  }
+
+  LeafColumns getColumns(Template template) {
+    return columns == null ? null : columns.get(template);
+  }
+
+  // Converts the columns for the specified template (if any) into regular child
+  // sessions.
+  void materialize(Template t) {
+    if (columns != null && columns.containsKey(t)) {
+      LeafColumns cols = columns.remove(t);
+      RenderSession[] children = cols.toSessions(config);
+      sessions.put(t, children);
+      adopt(children);
+      if (!cols.isFullyPopulated()) {
+        addPending(-1);
+      }
+    }
+  }
+
+  void setLazySource(Template t, LazySource source) throws RenderException {
+    Check.on(lazyMultiPass(t), isProcessed(t)).is(no());
+    if (lazySources == null) {
+      lazySources = new IdentityHashMap<>();
+    }
+    lazySources.put(t, source);
+  }
+
+  LazySource getLazySource(Template template) {
+    return lazySources == null ? null : lazySources.get(template);
+  }
+
+  // Returns the first template in this state, or in any of its descendants, that
+  // is populated from a data source that can be walked only once, or null if there
+  // is no such template
+  Template findSingleUseSource() {
+    if (lazySources != null) {
+      for (LazySource source : lazySources.values()) {
+        if (source.isSingleUse()) {
+          return source.getTemplate();
+        }
+      }
+    }
+    for (RenderSession[] children : sessions.values()) {
+      for (RenderSession child : children) {
+        if (child != null) {
+          Template t = child.getState().findSingleUseSource();
+          if (t != null) {
+            return t;
+          }
+        }
+      }
+    }
+    return null;
+  }
+
   RenderSession[] getOrCreateTextOnlyChildSessions(Template t, int repeats) throws RenderException {
     // The RenderSession[] array will never contain any actual RenderSession
     // instances for a text-only template. Only its length matters to the
@@ -70,7 +241,7 @@ class RenderState {
   }
 
   boolean isProcessed(Template template) {
-    return sessions.get(template) != null;
+    return sessions.get(template) != null || getLazySource(template) != null;
   }
 
   boolean isEnabled(Template template) {
@@ -85,44 +256,115 @@ class RenderState {
     return sessions.get(template);
   }
 
+  Object[] getCacheKeys(Template template) {
+    return cacheKeys == null ? null : cacheKeys.get(template);
+  }
+
+  String[] getFragments(Template template) {
+    return fragments == null ? null : fragments.get(template);
+  }
+
   Object getVar(int partIndex) {
-    return varValues.get(partIndex);
+    return varValues[partIndex];
   }
 
   void setVar(int partIndex, String[] value) {
-    varValues.put(partIndex, value);
+    varValues[partIndex] = value;
+  }
+
+  void setVar(int partIndex, ListValue value) {
+    varValues[partIndex] = value;
   }
 
   void setVar(int partIndex, Renderable value) {
-    varValues.put(partIndex, value);
+    varValues[partIndex] = value;
   }
 
   boolean isSet(String var) {
-    return !todo.contains(var);
+    return isSet(config.getTemplate().getVarSlot(var));
+  }
+
+  boolean isSet(VarSlot slot) {
+    return varsSet[slot.getOrdinal()];
   }
 
   void done(String var) {
-    todo.remove(var);
+    done(config.getTemplate().getVarSlot(var));
+  }
+
+  void done(VarSlot slot) {
+    if (!varsSet[slot.getOrdinal()]) {
+      varsSet[slot.getOrdinal()] = true;
+      addPending(-1);
+    }
   }
 
+  // A state is frozen once it, or any of its ancestors, has been frozen
   boolean isFrozen() {
     return frozen;
   }
 
-  void freeze() {
-    deepFreeze(this);
+  // Removes the value of the specified variable, so it can be set again
+  void unsetVar(VarSlot slot) {
+    for (int partIndex : slot.getPartIndices()) {
+      varValues[partIndex] = null;
+    }
+    if (varsSet[slot.getOrdinal()]) {
+      varsSet[slot.getOrdinal()] = false;
+      addPending(1);
+    }
   }
 
-  private static void deepFreeze(RenderState state0) {
-    state0.frozen = true;
-    state0
-        .sessions
-        .values()
-        .stream()
-        .flatMap(Arrays::stream)
-        .filter(notNull()) // text-only null sessions - don't need freezing anyhow
-        .map(RenderSession::getState)
-        .forEach(RenderState::deepFreeze);
+  // Discards everything that was done for the specified nested template, so it
+  // can be populated again
+  void unsetTemplate(Template t) {
+    RenderSession[] children = sessions.remove(t);
+    if (children != null) {
+      disown(children);
+    }
+    if (cacheKeys != null) {
+      cacheKeys.remove(t);
+      fragments.remove(t);
+    }
+    if (columns != null) {
+      LeafColumns cols = columns.remove(t);
+      if (cols != null && !cols.isFullyPopulated()) {
+        addPending(-1);
+      }
+    }
+    if (lazySources != null) {
+      lazySources.remove(t);
+    }
+  }
+
+  // Returns this state to its pristine condition, so the owning child session can
+  // be re-used for the next element of a LazySource. Since that child session has
+  // no parent, there is nobody to notify.
+  void reset() {
+    Arrays.fill(varsSet, false);
+    pending = varsSet.length;
+    sessions.clear();
+    Arrays.fill(varValues, null);
+    cacheKeys = null;
+    fragments = null;
+    columns = null;
+    lazySources = null;
+    frozen = false;
+  }
+
+  // Freezes this state and all of its descendants. Since a frozen state cannot be
+  // thawed, each state is visited at most once, however often the tree is rendered.
+  void freeze() {
+    if (!frozen) {
+      frozen = true;
+      for (RenderSession[] children : sessions.values()) {
+        for (RenderSession child : children) {
+          if (child != null) {
+            child.getState().freeze();
+          }
+        }
+      }
+    }
   }
 
   List<String> getUnsetCars() {
@@ -132,32 +374,77 @@ class RenderState {
   }
 
   private static void collectUnsetVars(RenderState state0, ArrayList<String> names) {
+    if (state0.pending == 0) {
+      return;
+    }
     Template t = state0.config.getTemplate();
-    state0.todo.stream().map(var -> getFQName(t, var)).forEach(names::add);
-    state0
-        .sessions
-        .values()
-        .stream()
-        .flatMap(Arrays::stream)
-        .map(RenderSession::getState)
-        .forEach(state -> collectUnsetVars(state, names));
+    for (VarSlot slot : t.getVarSlots()) {
+      if (!state0.varsSet[slot.getOrdinal()]) {
+        names.add(getFQName(t, slot.getName()));
+      }
+    }
+    if (state0.columns != null) {
+      state0.columns.values().forEach(cols -> cols.collectUnsetVars(names));
+    }
+    for (RenderSession[] children : state0.sessions.values()) {
+      for (RenderSession child : children) {
+        if (child != null) {
+          collectUnsetVars(child.getState(), names);
+        }
+      }
+    }
   }
 
   boolean isFullyPopulated() {
-    return ready(this);
+    return pending == 0;
   }
 
-  private static boolean ready(RenderState state0) {
-    if (state0.todo.size() > 0) {
-      return false;
+  /*
+   * Adjusts the number of pending items. If this state thereby becomes fully
+   * populated, or ceases to be, the parent state is adjusted accordingly.
+   */
+  void addPending(int delta) {
+    int now = PENDING.addAndGet(this, delta);
+    if (parent != null) {
+      if (now == 0) {
+        parent.addPending(-1);
+      } else if (delta > 0 && now == delta) {
+        parent.addPending(1);
+      }
+    }
+  }
+
+  private void adopt(RenderSession[] children) {
+    int notReady = 0;
+    for (RenderSession child : children) {
+      if (child != null) {
+        child.getState().parent = this;
+        if (child.getState().pending != 0) {
+          ++notReady;
+        }
+        if (frozen) {
+          child.getState().freeze();
+        }
+      }
+    }
+    if (notReady != 0) {
+      addPending(notReady);
+    }
+  }
+
+  private void disown(RenderSession[] children) {
+    int notReady = 0;
+    for (RenderSession child : children) {
+      if (child != null) {
+        child.getState().parent = null;
+        if (child.getState().pending != 0) {
+          ++notReady;
+        }
+      }
+    }
+    if (notReady != 0) {
+      addPending(-notReady);
     }
-    return state0
-        .sessions
-        .values()
-        .stream()
-        .flatMap(Arrays::stream)
-        .map(RenderSession::getState)
-        .allMatch(RenderState::ready);
   }
 
   private static RenderSession[] createTextOnlySessions(int repeats) {
@@ -1,7 +1,14 @@
 package org.klojang.template;
 
+import java.io.IOException;
 import java.io.OutputStream;
 import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPOutputStream;
+import nl.naturalis.check.Check;
+import nl.naturalis.common.ExceptionMethods;
+
 /**
  * Defines methods for rendering a populated {@link Template}. {@code Renderable} instances are
  * obtained via {@link RenderSession#createRenderable()}.
@@ -14,8 +21,9 @@ public interface Renderable {
   /**
    * Writes the populated template to the specified {@code OutputStream}. The actual implementation
    * returned by {@link RenderSession#createRenderable()} wraps the {@code OutputStream} into a
-   * {@link PrintStream} if it is not already a {@code PrintStream} but does not apply any
-   * buffering.
+   * {@link PrintStream} that encodes the output as UTF-8, even if the {@code OutputStream} already
+   * is a {@code PrintStream}, but does not apply any buffering. Thus the output is the same as the
+   * output of {@link #renderWithETag(OutputStream)}.
    *
    * @param out The {@code OutputStream} to which to write
    */
@@ -27,4 +35,78 @@ public interface Renderable {
    * @param sb The {@code StringBuilder} to which to write
    */
   void render(StringBuilder sb);
+
+  /**
+   * Writes the populated template to the specified {@code OutputStream} as a gzip
+   * stream, compressed at the specified level. The actual implementation returned by
+   * {@link RenderSession#createRenderable()} deflates large chunks of static text
+   * only once, caches the result, and from then on only compresses the variable
+   * parts of the output. This makes it much cheaper than wrapping the
+   * {@code OutputStream} into a {@link GZIPOutputStream} for templates that mainly
+   * consist of static markup. The output will be somewhat larger though, because
+   * the static and variable chunks are compressed independently of each other. The
+   * default implementation does wrap the {@code OutputStream} into a
+   * {@code GZIPOutputStream}. The output is encoded as UTF-8. The
+   * {@code OutputStream} is not closed by this method.
+   *
+   * @param out The {@code OutputStream} to which to write
+   * @param level The compression level (0-9), or -1 for the default compression
+   *     level
+   * @see Deflater
+   */
+  default void renderCompressed(OutputStream out, int level) {
+    try {
+      GZIPOutputStream gzip = new GZIPOutputStream(out) {
+        {
+          def.setLevel(level);
+        }
+      };
+      StringBuilder sb = new StringBuilder();
+      render(sb);
+      gzip.write(sb.toString().getBytes(StandardCharsets.UTF_8));
+      gzip.finish();
+    } catch (IOException e) {
+      throw ExceptionMethods.uncheck(e);
+    }
+  }
+
+  /**
+   * Writes the populated template to the specified {@code OutputStream}, encoded as
+   * UTF-8, and returns a strong ETag for the output. The ETag is computed while
+   * rendering, from a SHA-256 hash of the output, so there is no need to render the
+   * template to a {@code String} first. It includes the surrounding double quotes
+   * and can be used as-is for the {@code ETag} response header. The
+   * {@code OutputStream} is not closed by this method.
+   *
+   * @param out The {@code OutputStream} to which to write
+   * @return The ETag for the output
+   */
+  default String renderWithETag(OutputStream out) {
+    Check.notNull(out, "out");
+    DigestOutput digest = new DigestOutput(out);
+    render(digest.getBuffer());
+    digest.finish();
+    return digest.getETag();
+  }
+
+  /**
+   * Returns the ETag that {@link #renderWithETag(OutputStream)} would return,
+   * without writing any output. Use this to answer conditional requests
+   * ({@code If-None-Match}) with a 304 (Not Modified) response before rendering
+   * anything. The actual implementation returned by
+   * {@link RenderSession#createRenderable()} throws a
+   * {@link org.klojang.KlojangRTException} wrapping a {@link RenderException} if the
+   * template, or any of its nested templates, is populated from an {@code Iterator},
+   * a {@code Stream} or a {@link java.sql.ResultSet}, since these can be walked only
+   * once. The data source is left untouched in that case, so the template can still
+   * be rendered.
+   *
+   * @return The ETag for the output
+   */
+  default String getETag() {
+    DigestOutput digest = new DigestOutput(null);
+    render(digest.getBuffer());
+    digest.finish();
+    return digest.getETag();
+  }
 }
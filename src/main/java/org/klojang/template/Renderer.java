@@ -4,24 +4,31 @@ import java.io.OutputStream;
 import java.io.PrintStream;
 import java.util.Arrays;
 import java.util.List;
-import java.util.stream.IntStream;
 import nl.naturalis.check.Check;
+import org.klojang.KlojangRTException;
 import static java.util.Arrays.stream;
+import static nl.naturalis.check.CommonChecks.gte;
+import static nl.naturalis.check.CommonChecks.lte;
 import static nl.naturalis.common.StringMethods.concat;
 
 class Renderer implements Renderable {
 
   private final RenderState state;
+  private final Parallelism parallelism;
 
   Renderer(RenderState state) {
+    this(state, Parallelism.NONE);
+  }
+
+  Renderer(RenderState state, Parallelism parallelism) {
     this.state = state;
+    this.parallelism = parallelism;
   }
 
   @Override
   public void render(OutputStream out) {
     Check.notNull(out);
-    PrintStream ps = out instanceof PrintStream ? (PrintStream) out : new PrintStream(out);
-    render(state, ps);
+    render(state, Utf8PrintStream.wrap(out));
   }
 
   @Override
@@ -30,6 +37,36 @@ class Renderer implements Renderable {
     render(state, sb);
   }
 
+  @Override
+  public void renderCompressed(OutputStream out, int level) {
+    Check.notNull(out, "out");
+    Check.that(level, "level").is(gte(), -1).is(lte(), 9);
+    CompressedOutput co = new CompressedOutput(out, level);
+    render(state, co);
+    co.finish();
+  }
+
+  @Override
+  public String renderWithETag(OutputStream out) {
+    Check.notNull(out, "out");
+    DigestOutput digest = new DigestOutput(out);
+    render(state, digest);
+    digest.finish();
+    return digest.getETag();
+  }
+
+  @Override
+  public String getETag() {
+    Template t = state.findSingleUseSource();
+    if (t != null) {
+      throw new KlojangRTException(RenderException.singleUseSource(t));
+    }
+    DigestOutput digest = new DigestOutput(null);
+    render(state, digest);
+    digest.finish();
+    return digest.getETag();
+  }
+
   @Override
   public String toString() {
     Template t = state.getSessionConfig().getTemplate();
@@ -47,29 +84,9 @@ class Renderer implements Renderable {
         TextPart tp = (TextPart) part;
         ps.append(tp.getText());
       } else if (part.getClass() == VariablePart.class) {
-        if (state0.getVar(i) != null) {
-          Object val = state0.getVar(i);
-          if (val.getClass() == String[].class) {
-            Arrays.stream((String[]) state0.getVar(i)).forEach(ps::append);
-          } else { // Renderable.class
-            ((Renderable) val).render(ps);
-          }
-        }
+        renderVar(state0, i, ps);
       } else /* TemplatePart */ {
-        NestedTemplatePart ntp = (NestedTemplatePart) part;
-        RenderSession[] sessions = state0.getChildSessions(ntp.getTemplate());
-        if (sessions != null) {
-          Template t = ntp.getTemplate();
-          if (t.isTextOnly()) {
-            // The RenderSession[] array will contain only null values
-            // and we just want to know its length to determine the
-            // number of repetitions
-            String text = ((TextPart) t.getParts().get(0)).getText();
-            IntStream.range(0, sessions.length).forEach(x -> ps.append(text));
-          } else {
-            stream(sessions).map(RenderSession::getState).forEach(s -> render(s, ps));
-          }
-        }
+        renderNested(state0, (NestedTemplatePart) part, ps);
       }
     }
   }
@@ -82,27 +99,297 @@ class Renderer implements Renderable {
         TextPart tp = (TextPart) part;
         sb.append(tp.getText());
       } else if (part.getClass() == VariablePart.class) {
-        if (state0.getVar(i) != null) {
-          Object val = state0.getVar(i);
-          if (val.getClass() == String[].class) {
-            Arrays.stream((String[]) state0.getVar(i)).forEach(sb::append);
-          } else { // Renderable.class
-            ((Renderable) val).render(sb);
+        renderVar(state0, i, sb);
+      } else /* TemplatePart */ {
+        renderNested(state0, (NestedTemplatePart) part, sb);
+      }
+    }
+  }
+
+  // Renders the template such that text parts can be served from data
+  // precomputed for them (e.g. their cached, deflated form)
+  private void render(RenderState state0, SegmentedOutput so) {
+    List<Part> parts = state0.getSessionConfig().getTemplate().getParts();
+    for (int i = 0; i < parts.size(); ++i) {
+      Part part = parts.get(i);
+      if (part.getClass() == TextPart.class) {
+        so.append((TextPart) part);
+      } else if (part.getClass() == VariablePart.class) {
+        renderVar(state0, i, so.getBuffer());
+      } else /* TemplatePart */ {
+        renderNested(state0, (NestedTemplatePart) part, so);
+      }
+    }
+  }
+
+  // Everything is passed on piecemeal, so the buffer of the SegmentedOutput never
+  // has to hold more than a single value, fragment or parallel chunk
+  private void renderNested(RenderState state0, NestedTemplatePart ntp, SegmentedOutput so) {
+    Template t = ntp.getTemplate();
+    RenderSession[] sessions = state0.getChildSessions(t);
+    if (state0.getLazySource(t) != null) {
+      LazySource source = state0.getLazySource(t);
+      if (source.getClass() == ResultSetSource.class) {
+        ((ResultSetSource) source).render(so);
+      } else {
+        source.forEach(state0.getSessionConfig(), s -> render(s, so));
+      }
+    } else if (sessions != null) {
+      if (t.isTextOnly()) {
+        for (int j = 0; j < sessions.length; ++j) {
+          t.getParts().forEach(p -> so.append((TextPart) p));
+        }
+      } else if (parallelism.appliesTo(sessions.length)) {
+        renderChunks(state0, t, sessions).forEach(so::append);
+      } else if (state0.getColumns(t) != null) {
+        LeafColumns cols = state0.getColumns(t);
+        List<Part> parts = t.getParts();
+        for (int j = 0; j < cols.getRepeats(); ++j) {
+          for (int k = 0; k < parts.size(); ++k) {
+            if (parts.get(k).getClass() == TextPart.class) {
+              so.append((TextPart) parts.get(k));
+            } else if (cols.getValue(k, j) != null) {
+              so.append(cols.getValue(k, j));
+            }
           }
         }
-      } else /* TemplatePart */ {
-        NestedTemplatePart ntp = (NestedTemplatePart) part;
-        RenderSession[] sessions = state0.getChildSessions(ntp.getTemplate());
-        if (sessions != null) {
-          Template t = ntp.getTemplate();
-          if (t.isTextOnly()) {
-            String text = ((TextPart) t.getParts().get(0)).getText();
-            IntStream.range(0, sessions.length).forEach(x -> sb.append(text));
+      } else if (state0.getFragments(t) == null) {
+        stream(sessions).map(RenderSession::getState).forEach(s -> render(s, so));
+      } else {
+        Object[] keys = state0.getCacheKeys(t);
+        for (int j = 0; j < sessions.length; ++j) {
+          if (keys[j] == null) {
+            render(sessions[j].getState(), so);
+          } else {
+            so.append(getFragment(state0, t, sessions, j));
+          }
+        }
+      }
+    }
+  }
+
+  static void renderVar(RenderState state0, int partIndex, PrintStream ps) {
+    if (state0.getVar(partIndex) != null) {
+      Object val = state0.getVar(partIndex);
+      if (val.getClass() == String[].class) {
+        Arrays.stream((String[]) val).forEach(ps::append);
+      } else if (val.getClass() == ListValue.class) {
+        ((ListValue) val).appendTo(ps);
+      } else { // Renderable.class
+        ((Renderable) val).render(ps);
+      }
+    }
+  }
+
+  static void renderVar(RenderState state0, int partIndex, StringBuilder sb) {
+    if (state0.getVar(partIndex) != null) {
+      Object val = state0.getVar(partIndex);
+      if (val.getClass() == String[].class) {
+        Arrays.stream((String[]) val).forEach(sb::append);
+      } else if (val.getClass() == ListValue.class) {
+        ((ListValue) val).appendTo(sb);
+      } else { // Renderable.class
+        ((Renderable) val).render(sb);
+      }
+    }
+  }
+
+  void renderNested(RenderState state0, NestedTemplatePart ntp, PrintStream ps) {
+    Metrics.NestedRenderEvent event = new Metrics.NestedRenderEvent();
+    if (!Metrics.isNestedRenderTimed(event)) {
+      doRenderNested(state0, ntp, ps);
+      return;
+    }
+    // The number of characters written to a PrintStream cannot be established,
+    // so we count them on their way through.
+    CountingPrintStream cps = ps.getClass() == CountingPrintStream.class
+        ? (CountingPrintStream) ps
+        : new CountingPrintStream(ps);
+    long start = System.nanoTime();
+    long count = cps.getCount();
+    event.begin();
+    doRenderNested(state0, ntp, cps);
+    Metrics.nestedRendered(event, ntp.getTemplate(), start, (int) (cps.getCount() - count));
+  }
+
+  void renderNested(RenderState state0, NestedTemplatePart ntp, StringBuilder sb) {
+    Metrics.NestedRenderEvent event = new Metrics.NestedRenderEvent();
+    if (!Metrics.isNestedRenderTimed(event)) {
+      doRenderNested(state0, ntp, sb);
+      return;
+    }
+    renderNested(state0, ntp, sb, event);
+  }
+
+  private void renderNested(RenderState state0,
+      NestedTemplatePart ntp,
+      StringBuilder sb,
+      Metrics.NestedRenderEvent event) {
+    long start = System.nanoTime();
+    int length = sb.length();
+    event.begin();
+    doRenderNested(state0, ntp, sb);
+    Metrics.nestedRendered(event, ntp.getTemplate(), start, sb.length() - length);
+  }
+
+  private void doRenderNested(RenderState state0, NestedTemplatePart ntp, PrintStream ps) {
+    RenderSession[] sessions = state0.getChildSessions(ntp.getTemplate());
+    if (state0.getLazySource(ntp.getTemplate()) != null) {
+      LazySource source = state0.getLazySource(ntp.getTemplate());
+      if (source.getClass() == ResultSetSource.class) {
+        ((ResultSetSource) source).render(ps);
+      } else {
+        source.forEach(state0.getSessionConfig(), s -> render(s, ps));
+      }
+    } else if (sessions != null) {
+      Template t = ntp.getTemplate();
+      if (t.isTextOnly()) {
+        // The RenderSession[] array will contain only null values
+        // and we just want to know its length to determine the
+        // number of repetitions
+        t.appendRepeatedText(sessions.length, ps);
+      } else if (parallelism.appliesTo(sessions.length)) {
+        renderChunks(state0, t, sessions).forEach(ps::append);
+      } else if (state0.getColumns(t) != null) {
+        render(state0.getColumns(t), ps);
+      } else if (state0.getFragments(t) == null) {
+        stream(sessions).map(RenderSession::getState).forEach(s -> render(s, ps));
+      } else {
+        Object[] keys = state0.getCacheKeys(t);
+        for (int j = 0; j < sessions.length; ++j) {
+          if (keys[j] == null) {
+            render(sessions[j].getState(), ps);
           } else {
-            stream(sessions).map(RenderSession::getState).forEach(s -> render(s, sb));
+            ps.append(getFragment(state0, t, sessions, j));
           }
         }
       }
     }
   }
+
+  private void doRenderNested(RenderState state0, NestedTemplatePart ntp, StringBuilder sb) {
+    RenderSession[] sessions = state0.getChildSessions(ntp.getTemplate());
+    if (state0.getLazySource(ntp.getTemplate()) != null) {
+      LazySource source = state0.getLazySource(ntp.getTemplate());
+      if (source.getClass() == ResultSetSource.class) {
+        ((ResultSetSource) source).render(sb);
+      } else {
+        source.forEach(state0.getSessionConfig(), s -> render(s, sb));
+      }
+    } else if (sessions != null) {
+      Template t = ntp.getTemplate();
+      if (t.isTextOnly()) {
+        t.appendRepeatedText(sessions.length, sb);
+      } else if (parallelism.appliesTo(sessions.length)) {
+        renderChunks(state0, t, sessions).forEach(sb::append);
+      } else if (state0.getColumns(t) != null) {
+        render(state0.getColumns(t), sb);
+      } else if (state0.getFragments(t) == null) {
+        stream(sessions).map(RenderSession::getState).forEach(s -> render(s, sb));
+      } else {
+        Object[] keys = state0.getCacheKeys(t);
+        for (int j = 0; j < sessions.length; ++j) {
+          if (keys[j] == null) {
+            render(sessions[j].getState(), sb);
+          } else {
+            sb.append(getFragment(state0, t, sessions, j));
+          }
+        }
+      }
+    }
+  }
+
+  // Renders the repetitions of a nested template in chunks, using the
+  // Parallelism's ForkJoinPool, and returns the output of each chunk, in order.
+  private List<StringBuilder> renderChunks(RenderState state0,
+      Template t,
+      RenderSession[] sessions) {
+    try {
+      return parallelism.execute(sessions.length, (from, to) -> {
+        StringBuilder sb = new StringBuilder();
+        for (int i = from; i < to; ++i) {
+          renderRepetition(state0, t, sessions, i, sb);
+        }
+        return sb;
+      });
+    } catch (RenderException e) {
+      // Won't happen; rendering does not throw checked exceptions
+      throw new KlojangRTException(e);
+    }
+  }
+
+  private void renderRepetition(RenderState state0,
+      Template t,
+      RenderSession[] sessions,
+      int repetition,
+      StringBuilder sb) {
+    if (state0.getColumns(t) != null) {
+      render(state0.getColumns(t), repetition, sb);
+    } else if (state0.getFragments(t) == null) {
+      render(sessions[repetition].getState(), sb);
+    } else if (state0.getCacheKeys(t)[repetition] == null) {
+      render(sessions[repetition].getState(), sb);
+    } else {
+      sb.append(getFragment(state0, t, sessions, repetition));
+    }
+  }
+
+  private static void render(LeafColumns cols, int repetition, StringBuilder sb) {
+    List<Part> parts = cols.getTemplate().getParts();
+    for (int j = 0; j < parts.size(); ++j) {
+      Part part = parts.get(j);
+      if (part.getClass() == TextPart.class) {
+        sb.append(((TextPart) part).getText());
+      } else if (cols.getValue(j, repetition) != null) {
+        sb.append(cols.getValue(j, repetition));
+      }
+    }
+  }
+
+  private static void render(LeafColumns cols, PrintStream ps) {
+    List<Part> parts = cols.getTemplate().getParts();
+    for (int i = 0; i < cols.getRepeats(); ++i) {
+      for (int j = 0; j < parts.size(); ++j) {
+        Part part = parts.get(j);
+        if (part.getClass() == TextPart.class) {
+          ps.append(((TextPart) part).getText());
+        } else if (cols.getValue(j, i) != null) {
+          ps.append(cols.getValue(j, i));
+        }
+      }
+    }
+  }
+
+  private static void render(LeafColumns cols, StringBuilder sb) {
+    List<Part> parts = cols.getTemplate().getParts();
+    for (int i = 0; i < cols.getRepeats(); ++i) {
+      for (int j = 0; j < parts.size(); ++j) {
+        Part part = parts.get(j);
+        if (part.getClass() == TextPart.class) {
+          sb.append(((TextPart) part).getText());
+        } else if (cols.getValue(j, i) != null) {
+          sb.append(cols.getValue(j, i));
+        }
+      }
+    }
+  }
+
+  // Returns the output of a repetition of a nested template managed by a
+  // FragmentCache, rendering and caching it if it was not served from the
+  // cache.
+  private String getFragment(RenderState state0,
+      Template t,
+      RenderSession[] sessions,
+      int repetition) {
+    String[] fragments = state0.getFragments(t);
+    if (fragments[repetition] == null) {
+      StringBuilder sb = new StringBuilder();
+      render(sessions[repetition].getState(), sb);
+      String fragment = sb.toString();
+      Object key = state0.getCacheKeys(t)[repetition];
+      state0.getSessionConfig().getFragmentCache().put(t, key, fragment);
+      fragments[repetition] = fragment;
+    }
+    return fragments[repetition];
+  }
 }
@@ -0,0 +1,125 @@
+package org.klojang.template;
+
+import nl.naturalis.common.ExceptionMethods;
+import org.klojang.KlojangRTException;
+import org.klojang.x.db.rs.ColumnReader;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static nl.naturalis.common.ObjectMethods.isEmpty;
+
+/*
+ * A ResultSet that is to populate a nested template that does not itself contain
+ * nested templates. The variables of the template are bound to the columns of the
+ * ResultSet just once. At render time the rows are streamed straight from the
+ * ResultSet, through the stringifiers, into the output, without creating child
+ * sessions, Row objects or JavaBeans. Variables are mapped to column labels using
+ * the NameMapper that the AccessorRegistry would use when accessing a Row.
+ */
+final class ResultSetSource extends LazySource {
+
+  private final ResultSet rs;
+  private final VarGroup defGroup;
+  private final StringifierRegistry registry;
+  private final ColumnReader<?>[] readers; // indexed by part index
+  private final Stringifier[] stringifiers; // indexed by part index
+
+  ResultSetSource(Template t,
+      ResultSet rs,
+      SessionConfig parentConfig,
+      VarGroup defGroup,
+      String[] names) {
+    super(t, rs, defGroup, names);
+    this.rs = rs;
+    this.defGroup = defGroup;
+    this.registry = parentConfig.getStringifiers();
+    this.readers = new ColumnReader<?>[t.getParts().size()];
+    this.stringifiers = new Stringifier[readers.length];
+    Map<String, ColumnReader<?>> byLabel = ColumnReader.createReaders(rs);
+    NameMapper nm = parentConfig.getAccessors().getNameMapper(t);
+    Set<String> varNames;
+    if (isEmpty(names)) {
+      varNames = t.getVariables();
+    } else {
+      varNames = new HashSet<>(t.getVariables());
+      varNames.retainAll(List.of(names));
+    }
+    for (String var : varNames) {
+      ColumnReader<?> reader = getReader(byLabel, nm.map(var));
+      if (reader != null) {
+        t.getVarPartIndices().get(var).forEach(i -> readers[i] = reader);
+      }
+    }
+  }
+
+  @Override
+  int count() {
+    markConsumed();
+    try {
+      int count = 0;
+      while (rs.next()) {
+        ++count;
+      }
+      return count;
+    } catch (SQLException e) {
+      throw ExceptionMethods.uncheck(e);
+    }
+  }
+
+  void render(Appendable out) {
+    markConsumed();
+    Template t = getTemplate();
+    List<Part> parts = t.getParts();
+    try {
+      while (rs.next()) {
+        for (int i = 0; i < parts.size(); ++i) {
+          Part part = parts.get(i);
+          if (part.getClass() == TextPart.class) {
+            out.append(((TextPart) part).getText());
+          } else if (readers[i] != null) {
+            VariablePart vp = (VariablePart) part;
+            out.append(stringify(i, vp, readers[i].read(rs)));
+          }
+        }
+      }
+    } catch (RenderException e) {
+      throw new KlojangRTException(e);
+    } catch (Throwable e) {
+      throw ExceptionMethods.uncheck(e);
+    }
+  }
+
+  // The stringifier is resolved once, using the first non-null value (as type-based
+  // stringifiers cannot be found using null).
+  private String stringify(int partIndex, VariablePart part, Object value)
+      throws RenderException {
+    Stringifier sf = stringifiers[partIndex];
+    if (sf == null) {
+      sf = registry.getStringifier(part, defGroup, value);
+      if (value != null) {
+        stringifiers[partIndex] = sf;
+      }
+    }
+    return RenderSession.stringify(getTemplate(), sf, part.getName(), value);
+  }
+
+  private static ColumnReader<?> getReader(Map<String, ColumnReader<?>> readers,
+      String label) {
+    ColumnReader<?> reader = readers.get(label);
+    if (reader == null) {
+      // JDBC drivers do not agree on the case of column labels
+      for (Map.Entry<String, ColumnReader<?>> e : readers.entrySet()) {
+        if (e.getKey().equalsIgnoreCase(label)) {
+          return e.getValue();
+        }
+      }
+    }
+    return reader;
+  }
+
+}
@@ -0,0 +1,47 @@
+package org.klojang.template;
+
+/*
+ * Base class for render targets that treat the text parts of a template separately
+ * from the rest of the output, so they can take advantage of data precomputed per
+ * TextPart. Everything else (variables, text produced by lazy sources, etc.) is
+ * written to a buffer that subclasses process as they see fit. Subclasses keep the
+ * buffer bounded by processing it whenever it grows too large, so output must be
+ * appended in pieces (directly or through the Appendable methods), rather than
+ * rendered into the buffer as a whole.
+ */
+abstract class SegmentedOutput implements Appendable {
+
+  /*
+   * Returns the buffer for output that is not static text.
+   */
+  abstract StringBuilder getBuffer();
+
+  /*
+   * Writes the text of the specified part.
+   */
+  abstract void append(TextPart part);
+
+  /*
+   * Processes any remaining buffered output.
+   */
+  abstract void finish();
+
+  @Override
+  public SegmentedOutput append(CharSequence csq) {
+    getBuffer().append(csq);
+    return this;
+  }
+
+  @Override
+  public SegmentedOutput append(CharSequence csq, int start, int end) {
+    getBuffer().append(csq, start, end);
+    return this;
+  }
+
+  @Override
+  public SegmentedOutput append(char c) {
+    getBuffer().append(c);
+    return this;
+  }
+
+}
@@ -8,6 +8,7 @@ class SessionConfig {
   private final Template template;
   private final AccessorRegistry accessors;
   private final StringifierRegistry stringifiers;
+  private final FragmentCache fragmentCache;
 
   SessionConfig(Template template) {
     this(template, STANDARD_ACCESSORS, STANDARD_STRINGIFIERS);
@@ -22,9 +23,18 @@ class SessionConfig {
   }
 
   SessionConfig(Template template, AccessorRegistry accessors, StringifierRegistry stringifiers) {
+    this(template, accessors, stringifiers, null);
+  }
+
+  SessionConfig(
+      Template template,
+      AccessorRegistry accessors,
+      StringifierRegistry stringifiers,
+      FragmentCache fragmentCache) {
     this.template = template;
     this.accessors = accessors;
     this.stringifiers = stringifiers;
+    this.fragmentCache = fragmentCache;
   }
 
   RenderSession newRenderSession() {
@@ -43,12 +53,16 @@ class SessionConfig {
     return stringifiers;
   }
 
+  FragmentCache getFragmentCache() {
+    return fragmentCache;
+  }
+
   Accessor<?> getAccessor(Object sourceData) {
     return accessors.getAccessor(sourceData, template);
   }
 
   RenderSession newChildSession(Template nested) {
-    SessionConfig config = new SessionConfig(nested, accessors, stringifiers);
+    SessionConfig config = new SessionConfig(nested, accessors, stringifiers, fragmentCache);
     return config.newRenderSession();
   }
 }
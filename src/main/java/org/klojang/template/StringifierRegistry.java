@@ -453,6 +453,11 @@ public final class StringifierRegistry {
 
   Stringifier getStringifier(VariablePart part, VarGroup defaultGroup, Object value)
       throws RenderException {
+    return getStringifier(part, defaultGroup, value == null ? null : value.getClass());
+  }
+
+  Stringifier getStringifier(VariablePart part, VarGroup defaultGroup, Class<?> valueType)
+      throws RenderException {
     StringifierId id;
     Stringifier sf;
     if (part.getVarGroup().isPresent()) {
@@ -491,8 +496,8 @@ public final class StringifierRegistry {
       }
     }
     Class<?> type = typeLookup.get(Tuple2.of(tmpl, var));
-    if (type == null && value != null) {
-      type = value.getClass();
+    if (type == null) {
+      type = valueType;
     }
     if (type != null) {
       if (null != (sf = typeStringifiers.get(type))) {
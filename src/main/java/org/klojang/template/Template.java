@@ -8,12 +8,18 @@ import org.klojang.x.tmpl.TemplateId;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
 import java.util.*;
 
 import static java.util.stream.Collectors.toUnmodifiableList;
+import static nl.naturalis.common.CollectionMethods.asList;
 import static nl.naturalis.common.CollectionMethods.implode;
 import static nl.naturalis.common.ObjectMethods.ifNotNull;
 import static nl.naturalis.check.CommonChecks.*;
+import static org.klojang.template.AccessorRegistry.STANDARD_ACCESSORS;
+import static org.klojang.template.StringifierRegistry.STANDARD_STRINGIFIERS;
 import static org.klojang.template.TemplateUtils.getFQName;
 import static org.klojang.x.tmpl.TemplateSourceType.STRING;
 
@@ -35,6 +41,8 @@ public class Template {
   @SuppressWarnings("unused")
   private static final Logger LOG = LoggerFactory.getLogger(Template.class);
 
+  private static final int MAX_CACHED_REPEATS = 8;
+
   /**
    * The name given to the root template: "{root}". Any {@code Template} that is
    * explicitly instantiated by calling one of the {@code parse} methods gets this
@@ -137,9 +145,23 @@ public class Template {
    * All variable names and nested template together
    */
   private final List<String> names;
+  private final Map<String, VarSlot> varSlots;
+  private final Map<String, NestedSlot> tmplSlots;
+  // The VarSlots, indexed by their ordinal
+  private final VarSlot[] varSlotArray;
 
   Template parent;
 
+  // Identifies the template in metrics; lazily computed
+  private String label;
+
+  // The concatenated text of a text-only template, or null
+  private final String staticText;
+  // The UTF-8 length of all text in this template, excluding nested templates
+  private final int staticLength;
+  // Lazily computed concatenations of the static text for small repeat counts
+  private final String[] repeatedText;
+
   Template(String name, TemplateId id, List<Part> parts) {
     parts.forEach(p -> ((AbstractPart) p).setParentTemplate(this));
     this.name = name;
@@ -148,7 +170,57 @@ public class Template {
     this.varIndices = getVarIndices(parts);
     this.tmplIndices = getTmplIndices(parts);
     this.names = getNames(parts);
+    this.varSlots = getVarSlots(this, varIndices);
+    this.tmplSlots = getTmplSlots(parts, tmplIndices);
+    this.varSlotArray = varSlots.values().toArray(VarSlot[]::new);
     this.textIndices = getTextIndices(parts);
+    this.staticText = names.isEmpty() ? getStaticText(parts) : null;
+    this.staticLength = getStaticLength(parts);
+    this.repeatedText = names.isEmpty() ? new String[MAX_CACHED_REPEATS + 1] : null;
+  }
+
+  /*
+   * Creates a lightweight copy of the specified template, to be included under the
+   * specified name. Everything that does not depend on the identity of the template
+   * or its position within the template hierarchy is shared with the original: the
+   * text parts (which is where the memory goes) and the index structures. Variable
+   * parts and nested templates are copied, because they point back to the template
+   * containing them. The text parts keep pointing to the original, which is never
+   * attached to a parent itself.
+   */
+  private Template(Template body, String name) {
+    List<Part> copies = new ArrayList<>(body.parts.size());
+    for (Part part : body.parts) {
+      if (part.getClass() == TextPart.class) {
+        copies.add(part);
+        continue;
+      }
+      AbstractPart copy;
+      if (part.getClass() == VariablePart.class) {
+        copy = new VariablePart((VariablePart) part);
+      } else if (part.getClass() == InlineTemplatePart.class) {
+        Template t = ((NestedTemplatePart) part).getTemplate();
+        copy = new InlineTemplatePart(new Template(t, t.name), part.start());
+      } else {
+        Template t = ((NestedTemplatePart) part).getTemplate();
+        copy = new IncludedTemplatePart(new Template(t, t.name), part.start());
+      }
+      copy.setParentTemplate(this);
+      copies.add(copy);
+    }
+    this.name = name;
+    this.id = body.id;
+    this.parts = List.copyOf(copies);
+    this.varIndices = body.varIndices;
+    this.tmplIndices = body.tmplIndices;
+    this.names = body.names;
+    this.varSlots = getVarSlots(this, varIndices);
+    this.tmplSlots = getTmplSlots(parts, tmplIndices);
+    this.varSlotArray = varSlots.values().toArray(VarSlot[]::new);
+    this.textIndices = body.textIndices;
+    this.staticText = body.staticText;
+    this.staticLength = body.staticLength;
+    this.repeatedText = body.repeatedText;
   }
 
   /**
@@ -296,6 +368,71 @@ public class Template {
     return ((NestedTemplatePart) parts.get(partIndex)).getTemplate();
   }
 
+  /**
+   * Binds this {@code Template} to the specified type, using the
+   * {@link AccessorRegistry#STANDARD_ACCESSORS predefined accessors} and the
+   * {@link StringifierRegistry#STANDARD_STRINGIFIERS predefined stringifiers}. See
+   * {@link #bind(Class, AccessorRegistry, StringifierRegistry)}.
+   *
+   * @param <T> The type of the objects the template is rendered from
+   * @param sourceType The type of the objects the template is rendered from
+   * @return A {@code TemplateBinder} for the specified type
+   * @throws RenderException If the template cannot be bound to the specified type
+   */
+  public <T> TemplateBinder<T> bind(Class<T> sourceType) throws RenderException {
+    return bind(sourceType, STANDARD_ACCESSORS, STANDARD_STRINGIFIERS);
+  }
+
+  /**
+   * Binds this {@code Template} to the specified type. The returned
+   * {@link TemplateBinder} works out once how to read and stringify the values of
+   * the variables, and how to render the nested templates, for objects of the
+   * specified type, so it can render those objects without creating a
+   * {@link RenderSession}.
+   *
+   * @param <T> The type of the objects the template is rendered from
+   * @param sourceType The type of the objects the template is rendered from
+   * @param accessors The {@code AccessorRegistry} supplying the accessors
+   * @param stringifiers The {@code StringifierRegistry} supplying the stringifiers
+   * @return A {@code TemplateBinder} for the specified type
+   * @throws RenderException If the template cannot be bound to the specified type
+   */
+  public <T> TemplateBinder<T> bind(Class<T> sourceType,
+      AccessorRegistry accessors,
+      StringifierRegistry stringifiers) throws RenderException {
+    return TemplateBinder.bind(this, sourceType, accessors, stringifiers);
+  }
+
+  /**
+   * Returns a handle to the variable with the specified name. The handle can be
+   * passed to the {@link RenderSession} methods that accept a {@link VarSlot}, which
+   * avoids the cost of looking up the variable by name. This method throws an
+   * {@link IllegalArgumentException} if this {@code Template} contains no variable
+   * with the specified name.
+   *
+   * @param varName The name of the variable
+   * @return A handle to the variable
+   */
+  public VarSlot slot(String varName) {
+    Check.notNull(varName).is(keyIn(), varSlots, "No such variable: \"%s\"", varName);
+    return varSlots.get(varName);
+  }
+
+  /**
+   * Returns a handle to the nested template with the specified name. The handle can
+   * be passed to the {@link RenderSession} methods that accept a {@link NestedSlot},
+   * which avoids the cost of looking up the nested template by name. This method
+   * throws an {@link IllegalArgumentException} if this {@code Template} contains no
+   * nested template with the specified name.
+   *
+   * @param name The name of the nested template
+   * @return A handle to the nested template
+   */
+  public NestedSlot nestedSlot(String name) {
+    Check.notNull(name).is(keyIn(), tmplSlots, "No such template: \"%s\"", name);
+    return tmplSlots.get(name);
+  }
+
   /**
    * Returns the names of all variables and nested templates within this
    * {@code Template} (non-recursive). The returned {@code List} is unmodifiable.
@@ -379,6 +516,32 @@ public class Template {
     return new SessionConfig(this, accessors, stringifiers).newRenderSession();
   }
 
+  /**
+   * Returns a {@code RenderSession} with which populate and render this
+   * {@code Template}. The {@code RenderSession} will use the specified
+   * {@code FragmentCache} to re-use the output of repeating nested templates across
+   * render sessions.
+   *
+   * @param accessors The {@code AccessorRegistry} used to supply the
+   *     {@code RenderSession} with {@link Accessor accessors}
+   * @param stringifiers The {@code StringifierRegistry} used to supply the
+   *     {@code RenderSession} with {@link Stringifier stringifiers}
+   * @param fragmentCache The {@code FragmentCache} holding the output of
+   *     previously rendered nested templates
+   * @return A new {@code RenderSession}
+   */
+  public RenderSession newRenderSession(AccessorRegistry accessors,
+      StringifierRegistry stringifiers,
+      FragmentCache fragmentCache) {
+    Check.notNull(accessors, "accessors");
+    Check.notNull(stringifiers, "stringifiers");
+    Check.notNull(fragmentCache, "fragmentCache");
+    return new SessionConfig(this,
+        accessors,
+        stringifiers,
+        fragmentCache).newRenderSession();
+  }
+
   @Override
   public boolean equals(Object obj) {
     if (this == obj) {
@@ -405,6 +568,94 @@ public class Template {
     return id == null ? 0 : id.hashCode();
   }
 
+  /**
+   * Renders a single nested template, at any depth, without rendering the rest of
+   * this template. This is useful for endpoints that serve partial page updates.
+   * If the data object is an array or {@code Collection}, the nested template is
+   * repeated for each element in it, else the nested template is rendered once,
+   * using the data object itself. Only the {@code RenderSession} for the nested
+   * template is created. The nested template is populated using the
+   * {@link AccessorRegistry#STANDARD_ACCESSORS predefined accessors} and the
+   * {@link StringifierRegistry#STANDARD_STRINGIFIERS predefined stringifiers}. The
+   * output is encoded as UTF-8.
+   *
+   * @param fqName The fully-qualified name of the nested template, relative to
+   *     this template (e.g. "table.row")
+   * @param data The data for the nested template
+   * @param out The {@code OutputStream} to which to write
+   * @throws RenderException If an error occurred while populating the nested
+   *     template
+   * @see TemplateUtils#getNestedTemplate(Template, String)
+   */
+  public void renderFragment(String fqName, Object data, OutputStream out)
+      throws RenderException {
+    renderFragment(fqName, data, out, STANDARD_ACCESSORS, STANDARD_STRINGIFIERS, null);
+  }
+
+  /**
+   * Renders a single nested template, at any depth, without rendering the rest of
+   * this template, using the specified accessors and stringifiers. Since
+   * accessors, name mappers and stringifiers are registered per (nested) template,
+   * you can pass the same registries that you use to render the entire page. If a
+   * {@link FragmentCache} is specified, and the nested template was registered with
+   * it, the output for each element of the data object is served from the cache if
+   * possible, and cached otherwise. Since the cache is keyed on the nested template
+   * and the data, a fragment rendered this way will also be served to full-page
+   * renders, and vice versa.
+   *
+   * @param fqName The fully-qualified name of the nested template, relative to
+   *     this template (e.g. "table.row")
+   * @param data The data for the nested template
+   * @param out The {@code OutputStream} to which to write
+   * @param accessors The {@code AccessorRegistry} used to supply the
+   *     {@code RenderSession} with {@link Accessor accessors}
+   * @param stringifiers The {@code StringifierRegistry} used to supply the
+   *     {@code RenderSession} with {@link Stringifier stringifiers}
+   * @param fragmentCache The {@code FragmentCache} holding the output of
+   *     previously rendered nested templates. May be {@code null}.
+   * @throws RenderException If an error occurred while populating the nested
+   *     template
+   */
+  public void renderFragment(String fqName,
+      Object data,
+      OutputStream out,
+      AccessorRegistry accessors,
+      StringifierRegistry stringifiers,
+      FragmentCache fragmentCache) throws RenderException {
+    Check.notNull(out, "out");
+    Check.notNull(accessors, "accessors");
+    Check.notNull(stringifiers, "stringifiers");
+    Template t = TemplateUtils.getNestedTemplate(this, fqName);
+    List<?> list = asList(data);
+    PrintStream ps = Utf8PrintStream.wrap(out);
+    if (t.isTextOnly()) {
+      t.appendRepeatedText(list.size(), ps);
+      return;
+    }
+    Check.on(RenderException.missingSourceData(t), list).is(deepNotNull());
+    SessionConfig config = new SessionConfig(t, accessors, stringifiers, fragmentCache);
+    CacheKeyFunction kf = fragmentCache == null ? null : fragmentCache.getKeyFunction(t);
+    for (Object obj : list) {
+      Object key = kf == null ? null : kf.getCacheKey(obj);
+      String fragment = key == null ? null : fragmentCache.get(t, key);
+      if (fragment != null) {
+        ps.append(fragment);
+        continue;
+      }
+      RenderSession session = config.newRenderSession();
+      session.insert(obj);
+      if (key == null) {
+        session.render(ps);
+      } else {
+        StringBuilder sb = new StringBuilder();
+        session.render(sb);
+        fragmentCache.put(t, key, sb.toString());
+        ps.append(sb);
+      }
+    }
+    ps.flush();
+  }
+
   /**
    * More or less re-assembles to source code from the constituent parts of the
    * {@code Template}. Note, however, that ditch block are ditched early on in the
@@ -424,15 +675,60 @@ public class Template {
     return parts;
   }
 
+  /*
+   * Returns a copy of this template that can be attached to a parent template
+   * under the specified name, leaving this template itself untouched.
+   */
+  Template includeAs(String name) {
+    return new Template(this, name);
+  }
+
   @SuppressWarnings("unchecked")
   <T extends Part> T getPart(int index) {
     return (T) Check.that(index).is(listIndexOf(), parts).ok(parts::get);
   }
 
+  /*
+   * Returns the path of the template (or the nearest enclosing template that has
+   * one) followed by the fully-qualified name of the template, if it is nested.
+   * Identifies the template in metrics and Flight Recorder events.
+   */
+  String getLabel() {
+    if (label != null) {
+      return label;
+    }
+    Template t = this;
+    while (t.getPath() == null && t.parent != null) {
+      t = t.parent;
+    }
+    String s;
+    if (t.getPath() == null) {
+      s = getFQName(this);
+    } else if (parent == null) {
+      s = t.getPath();
+    } else {
+      s = t.getPath() + '#' + getFQName(this);
+    }
+    // Nested templates are parsed before they are attached to their parent
+    if (parent != null || name == ROOT_TEMPLATE_NAME) {
+      label = s;
+    }
+    return s;
+  }
+
   Map<String, IntList> getVarPartIndices() {
     return varIndices;
   }
 
+  // Returns null if there is no such variable
+  VarSlot getVarSlot(String varName) {
+    return varSlots.get(varName);
+  }
+
+  VarSlot[] getVarSlots() {
+    return varSlotArray;
+  }
+
   Map<String, Integer> getTemplatePartIndices() {
     return tmplIndices;
   }
@@ -441,6 +737,51 @@ public class Template {
     return textIndices;
   }
 
+  /*
+   * Returns the number of bytes (UTF-8) taken up by the text parts of this
+   * template. This is the minimum size of the output of a single repetition of the
+   * template, not counting the nested templates.
+   */
+  int getStaticLength() {
+    return staticLength;
+  }
+
+  /*
+   * Appends the entire text of this (text-only) template, repeated the specified
+   * number of times. The concatenation is cached for small repeat counts (0 and 1
+   * being by far the most common ones, as text-only templates are typically shown
+   * or hidden). Larger repeat counts append the text once per repetition, rather
+   * than building a temporary string of the full length first.
+   */
+  void appendRepeatedText(int repeats, StringBuilder sb) {
+    if (repeats > MAX_CACHED_REPEATS) {
+      for (int i = 0; i < repeats; ++i) {
+        sb.append(staticText);
+      }
+    } else {
+      sb.append(getRepeatedText(repeats));
+    }
+  }
+
+  void appendRepeatedText(int repeats, PrintStream ps) {
+    if (repeats > MAX_CACHED_REPEATS) {
+      for (int i = 0; i < repeats; ++i) {
+        ps.append(staticText);
+      }
+    } else {
+      ps.append(getRepeatedText(repeats));
+    }
+  }
+
+  // Racing threads may end up computing the same string twice, which is harmless
+  private String getRepeatedText(int repeats) {
+    String s = repeatedText[repeats];
+    if (s == null) {
+      s = repeatedText[repeats] = staticText.repeat(repeats);
+    }
+    return s;
+  }
+
   private static Map<String, IntList> getVarIndices(List<Part> parts) {
     Map<String, IntList> indices = new LinkedHashMap<>();
     for (int i = 0; i < parts.size(); ++i) {
@@ -464,6 +805,24 @@ public class Template {
     return Collections.unmodifiableMap(indices);
   }
 
+  private static Map<String, VarSlot> getVarSlots(Template t,
+      Map<String, IntList> varIndices) {
+    Map<String, VarSlot> slots = new LinkedHashMap<>();
+    varIndices.forEach((name, indices) -> slots.put(name,
+        new VarSlot(t, name, slots.size(), indices.toArray())));
+    return Collections.unmodifiableMap(slots);
+  }
+
+  private static Map<String, NestedSlot> getTmplSlots(List<Part> parts,
+      Map<String, Integer> tmplIndices) {
+    Map<String, NestedSlot> slots = new LinkedHashMap<>();
+    tmplIndices.forEach((name, partIndex) -> {
+      Template nested = ((NestedTemplatePart) parts.get(partIndex)).getTemplate();
+      slots.put(name, new NestedSlot(nested));
+    });
+    return Collections.unmodifiableMap(slots);
+  }
+
   private static List<String> getNames(List<Part> parts) {
     return parts.stream()
         .filter(NamedPart.class::isInstance)
@@ -472,6 +831,19 @@ public class Template {
         .collect(toUnmodifiableList());
   }
 
+  private static String getStaticText(List<Part> parts) {
+    StringBuilder sb = new StringBuilder();
+    parts.forEach(p -> sb.append(((TextPart) p).getText()));
+    return sb.toString();
+  }
+
+  private static int getStaticLength(List<Part> parts) {
+    return parts.stream()
+        .filter(p -> p.getClass() == TextPart.class)
+        .mapToInt(p -> ((TextPart) p).getText().getBytes(StandardCharsets.UTF_8).length)
+        .sum();
+  }
+
   private static IntList getTextIndices(List<Part> parts) {
     IntArrayList indices = new IntArrayList();
     for (int i = 0; i < parts.size(); ++i) {
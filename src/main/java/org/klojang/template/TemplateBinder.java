@@ -0,0 +1,362 @@
+package org.klojang.template;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.nio.charset.StandardCharsets;
+import java.sql.ResultSet;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import nl.naturalis.check.Check;
+import nl.naturalis.common.ExceptionMethods;
+import nl.naturalis.common.invoke.Getter;
+import nl.naturalis.common.invoke.GetterFactory;
+import org.klojang.x.acc.BeanAccessor;
+import org.klojang.x.acc.PathAccessor;
+
+import static nl.naturalis.check.CommonChecks.deepNotNull;
+import static nl.naturalis.check.CommonChecks.notNull;
+import static nl.naturalis.common.ClassMethods.box;
+import static nl.naturalis.common.CollectionMethods.asList;
+import static org.klojang.template.Accessor.UNDEFINED;
+import static org.klojang.template.RenderException.accessException;
+import static org.klojang.template.RenderException.lazySourceNotBindable;
+import static org.klojang.template.RenderException.missingSourceData;
+
+/**
+ * A {@link Template} bound to the type of the objects it is going to be rendered
+ * from. Where {@link RenderSession#insert(Object, String...) RenderSession.insert}
+ * works out, for every object it is given, how to read the values of the variables
+ * and how to stringify them, a {@code TemplateBinder} does so just once, when it is
+ * created through {@link Template#bind(Class, AccessorRegistry, StringifierRegistry)
+ * Template.bind}. For JavaBeans it resolves the getter of each variable and nested
+ * template (following the dots in variable names like {@code address.city}), the
+ * stringifier of each variable, and, recursively, the binders of the nested
+ * templates, based on the type of the corresponding property. Rendering then
+ * involves neither registry lookups nor render sessions. Configuration errors, like
+ * a variable group without a stringifier, surface when the template is bound rather
+ * than when it is rendered.
+ *
+ * <p>What cannot be resolved up front is resolved while rendering, just like
+ * {@code insert} would. This applies to values of non-final types, whose
+ * stringifier may depend on the runtime type of the value, and to the elements of
+ * nested data whose type is not known from the signature of the getter. The output
+ * is the same as the output of a render session populated through {@code insert}.
+ * The data for nested templates must be an object, an array or a
+ * {@code Collection}. Lazy data sources ({@code Iterator}, {@code Stream},
+ * {@code ResultSet}) are not supported and cause a {@link RenderException}.
+ *
+ * <p>A {@code TemplateBinder} is immutable and thread-safe, provided the
+ * accessors and stringifiers are.
+ *
+ * @param <T> The type of the objects the template is rendered from
+ * @author Ayco Holleman
+ */
+public final class TemplateBinder<T> {
+
+  /*
+   * Reads a value from a source data object.
+   */
+  @FunctionalInterface
+  private interface Reader {
+    Object read(Object obj) throws RenderException;
+  }
+
+  private static final class VarBinding {
+    private final VariablePart part;
+    private final Reader reader;
+    private final Stringifier stringifier; // null if it depends on the value
+
+    private VarBinding(VariablePart part, Reader reader, Stringifier stringifier) {
+      this.part = part;
+      this.reader = reader;
+      this.stringifier = stringifier;
+    }
+  }
+
+  private static final class NestedBinding {
+    private final Template template;
+    private final Reader reader;
+    private final Class<?> elementType; // null if unknown
+    private final TemplateBinder<?> binder; // the binder for the element type
+    // Binders for elements of some other type than the element type
+    private final Map<Class<?>, TemplateBinder<?>> others = new ConcurrentHashMap<>();
+
+    private NestedBinding(Template template,
+        Reader reader,
+        Class<?> elementType,
+        TemplateBinder<?> binder) {
+      this.template = template;
+      this.reader = reader;
+      this.elementType = elementType;
+      this.binder = binder;
+    }
+  }
+
+  static <U> TemplateBinder<U> bind(Template template,
+      Class<U> sourceType,
+      AccessorRegistry accessors,
+      StringifierRegistry stringifiers) throws RenderException {
+    Check.notNull(sourceType, "sourceType");
+    Check.notNull(accessors, "accessors");
+    Check.notNull(stringifiers, "stringifiers");
+    return new TemplateBinder<>(template, sourceType, accessors, stringifiers);
+  }
+
+  private final Template template;
+  private final Class<T> sourceType;
+  private final AccessorRegistry accessors;
+  private final StringifierRegistry stringifiers;
+  // A String for text parts, else a VarBinding or NestedBinding
+  private final Object[] bindings;
+
+  private TemplateBinder(Template template,
+      Class<T> sourceType,
+      AccessorRegistry accessors,
+      StringifierRegistry stringifiers) throws RenderException {
+    this.template = template;
+    this.sourceType = sourceType;
+    this.accessors = accessors;
+    this.stringifiers = stringifiers;
+    List<Part> parts = template.getParts();
+    this.bindings = new Object[parts.size()];
+    Accessor<?> acc = accessors.getAccessor(sourceType, template);
+    boolean bean = acc instanceof PathAccessor || acc instanceof BeanAccessor;
+    NameMapper nm = accessors.getNameMapper(template);
+    for (int i = 0; i < parts.size(); ++i) {
+      Part part = parts.get(i);
+      if (part.getClass() == TextPart.class) {
+        bindings[i] = ((TextPart) part).getText();
+        continue;
+      }
+      String name = ((NamedPart) part).getName();
+      Getter[] path = bean ? getGetterPath(sourceType, nm.map(name)) : null;
+      Reader reader = path == null
+          ? accessorReader(acc, name)
+          : getterReader(path, name, acc);
+      Class<?> type = path == null ? null : path[path.length - 1].getReturnType();
+      if (part.getClass() == VariablePart.class) {
+        VariablePart vp = (VariablePart) part;
+        Stringifier sf = null;
+        if (type != null && (type.isPrimitive() || Modifier.isFinal(type.getModifiers()))) {
+          sf = stringifiers.getStringifier(vp, null, box(type));
+        }
+        bindings[i] = new VarBinding(vp, reader, sf);
+      } else {
+        Template nested = ((NestedTemplatePart) part).getTemplate();
+        Class<?> elementType = null;
+        if (path != null) {
+          Class<?> owner = path.length == 1 ? sourceType : path[path.length - 2].getReturnType();
+          elementType = getElementType(owner, path[path.length - 1]);
+        }
+        TemplateBinder<?> binder = null;
+        if (elementType != null && !nested.isTextOnly()) {
+          binder = new TemplateBinder<>(nested, elementType, accessors, stringifiers);
+        }
+        bindings[i] = new NestedBinding(nested, reader, elementType, binder);
+      }
+    }
+  }
+
+  /**
+   * Returns the template bound by this {@code TemplateBinder}.
+   *
+   * @return The template bound by this {@code TemplateBinder}
+   */
+  public Template getTemplate() {
+    return template;
+  }
+
+  /**
+   * Returns the type of the objects the template is rendered from.
+   *
+   * @return The type of the objects the template is rendered from
+   */
+  public Class<T> getSourceType() {
+    return sourceType;
+  }
+
+  /**
+   * Renders the template using the specified object and writes the output to the
+   * specified {@code OutputStream}, encoded as UTF-8.
+   *
+   * @param data The object to render the template from
+   * @param out The {@code OutputStream} to which to write
+   * @throws RenderException If an error occurred while reading or stringifying the
+   *     values
+   */
+  public void render(T data, OutputStream out) throws RenderException {
+    Check.notNull(out, "out");
+    StringBuilder sb = new StringBuilder(Math.max(1024, template.getStaticLength()));
+    render(data, sb);
+    try {
+      out.write(sb.toString().getBytes(StandardCharsets.UTF_8));
+      out.flush();
+    } catch (IOException e) {
+      throw ExceptionMethods.uncheck(e);
+    }
+  }
+
+  /**
+   * Renders the template using the specified object and appends the output to the
+   * specified {@code StringBuilder}.
+   *
+   * @param data The object to render the template from
+   * @param sb The {@code StringBuilder} to which to append the output
+   * @throws RenderException If an error occurred while reading or stringifying the
+   *     values
+   */
+  public void render(T data, StringBuilder sb) throws RenderException {
+    Check.on(missingSourceData(template), data).is(notNull());
+    Check.notNull(sb, "sb");
+    write(data, sb);
+  }
+
+  private void write(Object data, StringBuilder sb) throws RenderException {
+    for (Object binding : bindings) {
+      if (binding.getClass() == String.class) {
+        sb.append((String) binding);
+      } else if (binding.getClass() == VarBinding.class) {
+        write((VarBinding) binding, data, sb);
+      } else {
+        write((NestedBinding) binding, data, sb);
+      }
+    }
+  }
+
+  private void write(VarBinding binding, Object data, StringBuilder sb)
+      throws RenderException {
+    Object value = binding.reader.read(data);
+    if (value != UNDEFINED) {
+      Stringifier sf = binding.stringifier;
+      if (sf == null || value == null) {
+        sf = stringifiers.getStringifier(binding.part, null, value);
+      }
+      sb.append(RenderSession.stringify(template, sf, binding.part.getName(), value));
+    }
+  }
+
+  private void write(NestedBinding binding, Object data, StringBuilder sb)
+      throws RenderException {
+    Object value = binding.reader.read(data);
+    if (value == UNDEFINED) {
+      return;
+    }
+    if (value instanceof ResultSet || LazySource.isLazySource(value)) {
+      throw lazySourceNotBindable(binding.template, value);
+    }
+    List<?> list = asList(value);
+    if (binding.template.isTextOnly()) {
+      binding.template.appendRepeatedText(list.size(), sb);
+      return;
+    }
+    Check.on(missingSourceData(binding.template), list).is(deepNotNull());
+    for (Object obj : list) {
+      getBinder(binding, obj.getClass()).write(obj, sb);
+    }
+  }
+
+  private TemplateBinder<?> getBinder(NestedBinding binding, Class<?> type)
+      throws RenderException {
+    if (type == binding.elementType) {
+      return binding.binder;
+    }
+    TemplateBinder<?> binder = binding.others.get(type);
+    if (binder == null) {
+      binder = new TemplateBinder<>(binding.template, type, accessors, stringifiers);
+      binding.others.putIfAbsent(type, binder);
+    }
+    return binder;
+  }
+
+  @SuppressWarnings({"unchecked", "rawtypes"})
+  private Reader accessorReader(Accessor acc, String name) {
+    return obj -> {
+      try {
+        return acc.access(obj, name);
+      } catch (RuntimeException e) {
+        throw accessException(template, name, e, obj, acc);
+      }
+    };
+  }
+
+  private Reader getterReader(Getter[] path, String name, Accessor<?> acc) {
+    return obj -> {
+      Object value = obj;
+      try {
+        for (int i = 0; i < path.length && value != null; ++i) {
+          value = path[i].read(value);
+        }
+      } catch (RuntimeException e) {
+        throw accessException(template, name, e, obj, acc);
+      } catch (Throwable t) {
+        throw ExceptionMethods.uncheck(t);
+      }
+      return value;
+    };
+  }
+
+  // Returns the getters for the segments of a (dot-separated) path, or null if
+  // any of them cannot be resolved
+  private static Getter[] getGetterPath(Class<?> type, String path) {
+    String[] segments = path.split("\\.");
+    Getter[] getters = new Getter[segments.length];
+    for (int i = 0; i < segments.length; ++i) {
+      if (i > 0 && !isBean(type)) {
+        return null;
+      }
+      getters[i] = GetterFactory.INSTANCE.getGetters(type, true).get(segments[i]);
+      if (getters[i] == null) {
+        return null;
+      }
+      type = getters[i].getReturnType();
+    }
+    return getters;
+  }
+
+  // Returns the type of the elements of the data for a nested template, or null if
+  // it cannot be determined from the signature of the getter
+  private static Class<?> getElementType(Class<?> owner, Getter getter) {
+    Class<?> type = getter.getReturnType();
+    if (type.isArray()) {
+      type = type.getComponentType();
+    } else if (Collection.class.isAssignableFrom(type)) {
+      type = getTypeArgument(owner, getter);
+    }
+    return type == null
+        || type.isPrimitive()
+        || type.isInterface()
+        || Modifier.isAbstract(type.getModifiers()) ? null : type;
+  }
+
+  private static Class<?> getTypeArgument(Class<?> owner, Getter getter) {
+    String prop = getter.getProperty();
+    String cap = Character.toUpperCase(prop.charAt(0)) + prop.substring(1);
+    for (Method m : owner.getMethods()) {
+      if (m.getParameterCount() == 0
+          && m.getReturnType() == getter.getReturnType()
+          && (m.getName().equals("get" + cap) || m.getName().equals(prop))
+          && m.getGenericReturnType() instanceof ParameterizedType) {
+        ParameterizedType pt = (ParameterizedType) m.getGenericReturnType();
+        Type[] args = pt.getActualTypeArguments();
+        if (args.length == 1 && args[0] instanceof Class) {
+          return (Class<?>) args[0];
+        }
+      }
+    }
+    return null;
+  }
+
+  private static boolean isBean(Class<?> type) {
+    return !type.isPrimitive()
+        && !type.isArray()
+        && !type.getName().startsWith("java.")
+        && !Map.class.isAssignableFrom(type);
+  }
+
+}
@@ -1,7 +1,10 @@
 package org.klojang.template;
 
-import java.util.HashMap;
-import java.util.LinkedList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import org.klojang.x.tmpl.TemplateId;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -16,8 +19,9 @@ class TemplateCache {
 
   public static final TemplateCache INSTANCE = new TemplateCache();
 
-  private final HashMap<String, Template> cache;
-  private final LinkedList<String> entries;
+  // Lock-free if the cache size is unlimited (the default), else a synchronized
+  // LinkedHashMap in access order, so it can evict the least recently used template
+  private final Map<String, Template> cache;
   private final int maxSize;
 
   private TemplateCache() {
@@ -27,13 +31,19 @@ class TemplateCache {
     Check.that(maxSize, TMPL_CACHE_SIZE.property()).is(gte(), -1);
     if (maxSize == 0) {
       cache = null;
-      entries = null;
     } else if (maxSize == -1) {
-      cache = new HashMap<>(32);
-      entries = null;
+      cache = new ConcurrentHashMap<>(32);
     } else {
-      cache = new HashMap<>((int) (maxSize / .75) + 1);
-      entries = new LinkedList<>();
+      cache = Collections.synchronizedMap(new LinkedHashMap<>(32, .75F, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Template> eldest) {
+          if (size() > maxSize) {
+            LOG.trace("Cache overflow. Evicting {}", eldest.getKey());
+            return true;
+          }
+          return false;
+        }
+      });
     }
   }
 
@@ -57,20 +67,44 @@ class TemplateCache {
     if (t == null) {
       LOG.trace("Not found");
       logTemplateRetrieval(name, id);
+      // Parse outside of any lock. Included templates are retrieved from the cache
+      // while parsing, and threads asking for other templates need not wait.
       t = new Parser(name, id).parse();
-      if (maxSize != -1 && entries.size() >= maxSize) {
-        String eldest = entries.pop();
-        LOG.trace("Cache overflow. Evicting {}", eldest);
-        cache.remove(eldest);
-        entries.add(id.path());
+      Template other = cache.putIfAbsent(id.path(), t);
+      if (other != null) { // another thread parsed it at the same time
+        t = other;
       }
-      cache.put(id.path(), t);
+      Metrics.cacheLookup(t, false);
     } else {
       LOG.trace("Found");
+      Metrics.cacheLookup(t, true);
     }
     return t;
   }
 
+  /*
+   * Returns a template to be included by another template under the specified
+   * name. A cached template may be included by any number of templates, so it is
+   * never attached to a parent itself. Each inclusion gets a lightweight copy of
+   * it instead, sharing the text with the cached template.
+   */
+  Template getIncluded(String name, TemplateId id) throws ParseException {
+    if (maxSize == 0 || id.path() == null) { // a fresh instance anyhow
+      return get(name, id);
+    }
+    return get(ROOT_TEMPLATE_NAME, id).includeAs(name);
+  }
+
+  // Returns the cached templates, in no particular order
+  List<Template> getTemplates() {
+    if (cache == null) {
+      return List.of();
+    }
+    synchronized (cache) { // required for iterating over a synchronized map
+      return List.copyOf(cache.values());
+    }
+  }
+
   private static void logTemplateRetrieval(String name, TemplateId id) {
     if (LOG.isTraceEnabled()) {
       if (name == ROOT_TEMPLATE_NAME) {
@@ -13,8 +13,10 @@ import static java.util.Arrays.copyOfRange;
 import static org.klojang.x.Messages.ERR_BAD_NAME;
 import static org.klojang.x.Messages.ERR_NO_SUCH_TEMPLATE;
 import static nl.naturalis.common.StringMethods.count;
+import static nl.naturalis.common.StringMethods.rpad;
 import static nl.naturalis.common.StringMethods.substrBefore;
 import static nl.naturalis.check.CommonChecks.empty;
+import static nl.naturalis.check.CommonChecks.gte;
 import static nl.naturalis.check.CommonChecks.in;
 
 /**
@@ -24,6 +26,9 @@ import static nl.naturalis.check.CommonChecks.in;
  */
 public class TemplateUtils {
 
+  private static final String HDR_PATH = "PATH";
+  private static final String HDR_SIZE = "ESTIMATED SIZE (BYTES)";
+
   private TemplateUtils() {}
 
   /**
@@ -280,4 +285,55 @@ public class TemplateUtils {
     new PartsPrinter(template).printParts(out);
   }
 
+
+  /**
+   * Returns an estimate of the number of bytes of heap memory retained by the
+   * specified {@code Template} and all templates descending from it. This includes
+   * the static text of the templates and the structures created while parsing them.
+   * Text shared by several templates in the hierarchy (e.g. a template included
+   * twice) is counted only once. The estimate assumes a 64-bit JVM with compressed
+   * object pointers.
+   *
+   * @param template The {@code Template}
+   * @return An estimate of the number of bytes retained by the {@code Template}
+   */
+  public static long estimateFootprint(Template template) {
+    Check.notNull(template, "template");
+    return FootprintEstimator.estimate(template);
+  }
+
+  /**
+   * Prints the largest templates in the internally maintained template cache,
+   * largest first, along with an {@link #estimateFootprint(Template) estimate} of
+   * the number of bytes they retain, followed by the total for all cached
+   * templates. Can be used to size the heap, or the cache (see
+   * {@link org.klojang.SysProp#TMPL_CACHE_SIZE}).
+   *
+   * @param out The {@code PrintStream} to which to print
+   * @param max The maximum number of templates to print
+   */
+  public static void printTemplateCache(PrintStream out, int max) {
+    Check.notNull(out, "out");
+    Check.that(max, "max").is(gte(), 0);
+    List<LaxTuple2<String, Long>> entries = new ArrayList<>();
+    long total = 0;
+    for (Template t : TemplateCache.INSTANCE.getTemplates()) {
+      long size = FootprintEstimator.estimate(t);
+      entries.add(LaxTuple2.of(t.getPath(), size));
+      total += size;
+    }
+    entries.sort((x, y) -> Long.compare(y.second(), x.second()));
+    int w = HDR_PATH.length();
+    for (LaxTuple2<String, Long> e : entries) {
+      w = Math.max(w, e.first().length());
+    }
+    out.println(rpad(HDR_PATH, w, ' ', " | ") + HDR_SIZE);
+    out.println(rpad("-", w, '-', "-+-") + rpad("-", HDR_SIZE.length(), '-', ""));
+    for (LaxTuple2<String, Long> e : entries.subList(0, Math.min(max, entries.size()))) {
+      out.println(rpad(e.first(), w, ' ', " | ") + e.second());
+    }
+    out.println(rpad("-", w, '-', "-+-") + rpad("-", HDR_SIZE.length(), '-', ""));
+    out.println(rpad("TOTAL (" + entries.size() + " templates)", w, ' ', " | ") + total);
+  }
+
 }
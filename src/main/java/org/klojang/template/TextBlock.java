@@ -0,0 +1,109 @@
+package org.klojang.template;
+
+import java.lang.ref.WeakReference;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+/*
+ * The static text of a TextPart, together with the derived forms the byte-oriented
+ * renderers need: the text encoded as UTF-8 and the deflated segments. If text
+ * deduplication is enabled (see SysProp.DEDUPLICATE_TEXT), all TextParts with the
+ * same text share a single TextBlock, whichever template they belong to. The pool
+ * only holds weak references, so blocks disappear along with the last template
+ * using them (e.g. when it is evicted from the TemplateCache).
+ */
+final class TextBlock {
+
+  // Text shorter than this is not worth the pool lookup
+  static final int MIN_POOLED_LENGTH = 64;
+
+  // Maps the text of each block to the block itself. The block holds on to the very
+  // same string instance, so the entry is dropped once the block is unreachable.
+  private static final Map<String, WeakReference<TextBlock>> POOL = new WeakHashMap<>();
+
+  static TextBlock of(String text) {
+    return new TextBlock(text);
+  }
+
+  static TextBlock pooled(String text) {
+    if (text.length() < MIN_POOLED_LENGTH) {
+      return new TextBlock(text);
+    }
+    synchronized (POOL) {
+      WeakReference<TextBlock> ref = POOL.get(text);
+      TextBlock block = ref == null ? null : ref.get();
+      if (block == null) {
+        block = new TextBlock(text);
+        POOL.put(block.text, new WeakReference<>(block));
+      }
+      return block;
+    }
+  }
+
+  // Returns the number of blocks in the pool
+  static int poolSize() {
+    synchronized (POOL) {
+      return POOL.size();
+    }
+  }
+
+  private final String text;
+
+  // The text encoded as UTF-8, created lazily. Volatile, because the contents of
+  // an array published through a plain field may be seen half-written by other
+  // threads.
+  private volatile byte[] bytes;
+
+  // Cached deflated segments, indexed by compression level + 1. The elements of
+  // the array are written without synchronization. That is only safe because all
+  // fields of a Segment are final, so any thread that sees a Segment also sees it
+  // fully constructed.
+  private volatile CompressedOutput.Segment[] segments;
+
+  private TextBlock(String text) {
+    this.text = text;
+  }
+
+  String getText() {
+    return text;
+  }
+
+  byte[] getBytes() {
+    byte[] b = bytes;
+    if (b == null) {
+      b = bytes = text.getBytes(StandardCharsets.UTF_8);
+    }
+    return b;
+  }
+
+  // Returns the UTF-8 encoded text if it has been created already, else null
+  byte[] peekBytes() {
+    return bytes;
+  }
+
+  // Returns the deflated segments if any have been created already, else null
+  CompressedOutput.Segment[] peekSegments() {
+    return segments;
+  }
+
+  /*
+   * Racing threads may end up encoding or deflating the text twice, or even
+   * replace each other's array of segments, which is harmless.
+   */
+  CompressedOutput.Segment getSegment(int level) {
+    if (text.length() < CompressedOutput.MIN_SEGMENT_SIZE) {
+      return null;
+    }
+    CompressedOutput.Segment[] segs = segments;
+    if (segs == null) {
+      segs = segments = new CompressedOutput.Segment[11];
+    }
+    CompressedOutput.Segment seg = segs[level + 1];
+    if (seg == null) {
+      seg = segs[level + 1] = new CompressedOutput.Segment(getBytes(), level);
+    }
+    return seg;
+  }
+
+}
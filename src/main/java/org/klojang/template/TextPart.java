@@ -2,19 +2,39 @@ package org.klojang.template;
 
 class TextPart extends AbstractPart {
 
-  private final String text;
+  private final TextBlock block;
 
   TextPart(String text, int start) {
+    this(TextBlock.of(text), start);
+  }
+
+  TextPart(TextBlock block, int start) {
     super(start);
-    this.text = text;
+    this.block = block;
   }
 
   String getText() {
-    return text;
+    return block.getText();
+  }
+
+  byte[] getBytes() {
+    return block.getBytes();
+  }
+
+  TextBlock getBlock() {
+    return block;
+  }
+
+  /*
+   * Returns the text of this part, deflated at the specified level, or null if the
+   * text is too small to be worth caching.
+   */
+  CompressedOutput.Segment getSegment(int level) {
+    return block.getSegment(level);
   }
 
   @Override
   public String toString() {
-    return text;
+    return getText();
   }
 }
@@ -0,0 +1,28 @@
+package org.klojang.template;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+
+/*
+ * A PrintStream that encodes its output as UTF-8, like all other render targets
+ * (StringBuilder output decoded by RenderSession.render(), ETags, compressed
+ * output). Rendering to an OutputStream must not depend on the platform's default
+ * charset, nor on the charset of a PrintStream passed in by the caller, which
+ * cannot be established in Java 17. Renderables nested inside the template are
+ * handed the same instance, so they do not wrap it again.
+ */
+final class Utf8PrintStream extends PrintStream {
+
+  static PrintStream wrap(OutputStream out) {
+    if (out.getClass() == Utf8PrintStream.class) {
+      return (PrintStream) out;
+    }
+    return new Utf8PrintStream(out);
+  }
+
+  private Utf8PrintStream(OutputStream out) {
+    super(out, false, StandardCharsets.UTF_8);
+  }
+
+}
@@ -1,6 +1,9 @@
 package org.klojang.template;
 
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import nl.naturalis.check.Check;
 import static org.klojang.x.Messages.ERR_NO_SUCH_VARGROUP;
 import static nl.naturalis.check.CommonChecks.notNull;
@@ -27,6 +30,18 @@ import static nl.naturalis.check.CommonChecks.notNull;
  */
 public class VarGroup {
 
+  // Groups are created while parsing templates, possibly by multiple threads at once
+  private static final Map<String, VarGroup> GROUPS = new ConcurrentHashMap<>();
+
+  /**
+   * All variable groups created thus far, keyed by their name. Groups are added to
+   * this map while holding its lock, so reading it is only safe while synchronizing
+   * on the map itself. Modifying it has no effect on the variable groups known to
+   * Klojang.
+   *
+   * @deprecated Use {@link #getVarGroups()}, which is thread-safe
+   */
+  @Deprecated
   public static final HashMap<String, VarGroup> VAR_GROUPS = new HashMap<>();
 
   /**
@@ -94,12 +109,29 @@ public class VarGroup {
     return Check.that(vg).is(notNull(), ERR_NO_SUCH_VARGROUP, name).ok();
   }
 
+  /**
+   * Returns an unmodifiable view of all variable groups created thus far, keyed by
+   * their name.
+   *
+   * @return An unmodifiable view of all variable groups created thus far
+   */
+  public static Map<String, VarGroup> getVarGroups() {
+    return Collections.unmodifiableMap(GROUPS);
+  }
+
+  @SuppressWarnings("deprecation")
   static VarGroup withName(String name) {
-    return VAR_GROUPS.computeIfAbsent(name, VarGroup::new);
+    return GROUPS.computeIfAbsent(name, n -> {
+      VarGroup vg = new VarGroup(n);
+      synchronized (VAR_GROUPS) {
+        VAR_GROUPS.put(n, vg);
+      }
+      return vg;
+    });
   }
 
   static VarGroup get(String name) {
-    return VAR_GROUPS.get(name);
+    return GROUPS.get(name);
   }
 
   private final String name;
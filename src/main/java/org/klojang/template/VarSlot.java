@@ -0,0 +1,64 @@
+package org.klojang.template;
+
+import static nl.naturalis.common.StringMethods.concat;
+
+/**
+ * A handle to a template variable, obtained through {@link Template#slot(String)}.
+ * A {@code VarSlot} resolves the name of the variable once, so that the
+ * {@link RenderSession} methods accepting a {@code VarSlot} can write the value
+ * straight into the session's internal arrays, without looking up the name over and
+ * over again. This pays off when setting the variables of many render sessions
+ * for the same template. A {@code VarSlot} is immutable and can be shared freely
+ * among threads and render sessions. It can only be used with render sessions for
+ * the template it was obtained from.
+ *
+ * @author Ayco Holleman
+ */
+public final class VarSlot {
+
+  private final Template template;
+  private final String name;
+  private final int ordinal;
+  private final int[] partIndices;
+
+  VarSlot(Template template, String name, int ordinal, int[] partIndices) {
+    this.template = template;
+    this.name = name;
+    this.ordinal = ordinal;
+    this.partIndices = partIndices;
+  }
+
+  /**
+   * Returns the template containing the variable.
+   *
+   * @return The template containing the variable
+   */
+  public Template getTemplate() {
+    return template;
+  }
+
+  /**
+   * Returns the name of the variable.
+   *
+   * @return The name of the variable
+   */
+  public String getName() {
+    return name;
+  }
+
+  @Override
+  public String toString() {
+    return concat("VarSlot[", TemplateUtils.getFQName(template, name), "]");
+  }
+
+  // The index of the variable within Template.getVariables()
+  int getOrdinal() {
+    return ordinal;
+  }
+
+  // The indices of the parts in which the variable occurs
+  int[] getPartIndices() {
+    return partIndices;
+  }
+
+}
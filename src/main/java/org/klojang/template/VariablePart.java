@@ -21,6 +21,13 @@ class VariablePart extends AbstractPart implements NamedPart {
     this.name = name;
   }
 
+  // Creates a copy of the specified part, to be attached to another template
+  VariablePart(VariablePart other) {
+    super(other.start());
+    this.group = other.group;
+    this.name = other.name;
+  }
+
   /**
    * Returns an {@code Optional} containing the group name prefix, or an empty {@code Optional} if
    * the variable was declared without a group name prefix. For example for {@code
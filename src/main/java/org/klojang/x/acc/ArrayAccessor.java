@@ -1,14 +1,14 @@
 package org.klojang.x.acc;
 
-import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import org.klojang.template.Accessor;
 import org.klojang.template.RenderException;
 import org.klojang.template.Template;
 
 public class ArrayAccessor implements Accessor<Object[]> {
 
-  private static final Map<Template, ArrayAccessor> cache = new HashMap<>();
+  private static final Map<Template, ArrayAccessor> cache = new ConcurrentHashMap<>();
 
   public static ArrayAccessor getInstance(Template template) {
     return cache.computeIfAbsent(template, ArrayAccessor::new);
@@ -14,13 +14,13 @@ import static nl.naturalis.check.CommonChecks.notNull;
 @SuppressWarnings({"rawtypes", "unchecked"})
 class ReceiverNegotiator {
 
-  private static ReceiverNegotiator INSTANCE;
+  // Lazily and safely initialized by the class loader
+  private static class Holder {
+    static final ReceiverNegotiator INSTANCE = new ReceiverNegotiator();
+  }
 
   static ReceiverNegotiator getInstance() {
-    if (INSTANCE == null) {
-      INSTANCE = new ReceiverNegotiator();
-    }
-    return INSTANCE;
+    return Holder.INSTANCE;
   }
 
   private final Map<Class<?>, Map<Integer, Receiver>> all;
@@ -4,8 +4,8 @@ import java.sql.ResultSet;
 import java.sql.ResultSetMetaData;
 import java.sql.SQLException;
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
 import org.klojang.db.SQLTypeNames;
 import org.klojang.template.NameMapper;
 
@@ -60,19 +60,39 @@ public class ChannelCache {
     return errors;
   }
 
-  private final HashMap<RsStrongIdentifier, BeanChannel[]> beanChannels = new HashMap<>();
-  private final HashMap<RsStrongIdentifier, RowChannel[]> rowChannels = new HashMap<>();
+  // Channels are created outside of the map's locks, because creating them involves
+  // querying the ResultSetMetaData. Racing threads may create the same channels
+  // twice, in which case the first one wins.
+  private final ConcurrentHashMap<RsStrongIdentifier, BeanChannel[]> beanChannels =
+      new ConcurrentHashMap<>();
+  private final ConcurrentHashMap<RsStrongIdentifier, RowChannel[]> rowChannels =
+      new ConcurrentHashMap<>();
 
   private ChannelCache() {}
 
   public BeanChannel[] getBeanChannels(ResultSet rs, Class clazz, NameMapper mapper) {
     RsStrongIdentifier id = new RsStrongIdentifier(rs);
-    return beanChannels.computeIfAbsent(
-        id, k -> BeanChannel.createChannels(rs, clazz, mapper));
+    BeanChannel[] channels = beanChannels.get(id);
+    if (channels == null) {
+      channels = BeanChannel.createChannels(rs, clazz, mapper);
+      BeanChannel[] other = beanChannels.putIfAbsent(id, channels);
+      if (other != null) {
+        channels = other;
+      }
+    }
+    return channels;
   }
 
   public RowChannel[] getRowChannels(ResultSet rs, NameMapper mapper) {
     RsStrongIdentifier id = new RsStrongIdentifier(rs);
-    return rowChannels.computeIfAbsent(id, k -> RowChannel.createChannels(rs, mapper));
+    RowChannel[] channels = rowChannels.get(id);
+    if (channels == null) {
+      channels = RowChannel.createChannels(rs, mapper);
+      RowChannel[] other = rowChannels.putIfAbsent(id, channels);
+      if (other != null) {
+        channels = other;
+      }
+    }
+    return channels;
   }
 }
@@ -0,0 +1,50 @@
+package org.klojang.x.db.rs;
+
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import nl.naturalis.common.ExceptionMethods;
+
+/*
+ * Reads the value of a single column from the current row of a ResultSet. Unlike a
+ * RowChannel it does not transport the value to some target object, so it can be
+ * used to stream values out of the ResultSet without materializing the rows.
+ */
+public class ColumnReader<COLUMN_TYPE> {
+
+  /*
+   * Returns a ColumnReader for each column in the ResultSet, keyed by column label.
+   */
+  public static Map<String, ColumnReader<?>> createReaders(ResultSet rs) {
+    RsMethods methods = RsMethods.getInstance();
+    try {
+      ResultSetMetaData rsmd = rs.getMetaData();
+      int sz = rsmd.getColumnCount();
+      Map<String, ColumnReader<?>> readers = new LinkedHashMap<>(sz * 2);
+      for (int idx = 0; idx < sz; ++idx) {
+        int jdbcIdx = idx + 1; // JDBC is one-based
+        int sqlType = rsmd.getColumnType(jdbcIdx);
+        RsMethod<?> method = methods.getMethod(sqlType);
+        readers.put(rsmd.getColumnLabel(jdbcIdx), new ColumnReader<>(method, jdbcIdx));
+      }
+      return readers;
+    } catch (SQLException e) {
+      throw ExceptionMethods.uncheck(e);
+    }
+  }
+
+  private final RsMethod<COLUMN_TYPE> method;
+  private final int jdbcIdx;
+
+  private ColumnReader(RsMethod<COLUMN_TYPE> method, int jdbcIdx) {
+    this.method = method;
+    this.jdbcIdx = jdbcIdx;
+  }
+
+  public COLUMN_TYPE read(ResultSet rs) throws Throwable {
+    return method.call(rs, jdbcIdx);
+  }
+
+}
@@ -24,13 +24,13 @@ import static org.klojang.db.SQLTypeNames.getTypeName;
 @SuppressWarnings("rawtypes")
 public class ExtractorNegotiator {
 
-  private static ExtractorNegotiator INSTANCE;
+  // Lazily and safely initialized by the class loader
+  private static class Holder {
+    static final ExtractorNegotiator INSTANCE = new ExtractorNegotiator();
+  }
 
   public static ExtractorNegotiator getInstance() {
-    if (INSTANCE == null) {
-      INSTANCE = new ExtractorNegotiator();
-    }
-    return INSTANCE;
+    return Holder.INSTANCE;
   }
 
   private final Map<Class<?>, Map<Integer, RsExtractor>> all;
@@ -12,13 +12,13 @@ import static nl.naturalis.check.CommonChecks.keyIn;
 
 class RsMethods {
 
-  private static RsMethods INSTANCE;
+  // Lazily and safely initialized by the class loader
+  private static class Holder {
+    static final RsMethods INSTANCE = new RsMethods();
+  }
 
   static RsMethods getInstance() {
-    if (INSTANCE == null) {
-      INSTANCE = new RsMethods();
-    }
-    return INSTANCE;
+    return Holder.INSTANCE;
   }
 
   private final Map<Integer, RsMethod<?>> cache;
@@ -0,0 +1,172 @@
+package org.klojang.x.tmpl;
+
+/*
+ * Collapses insignificant whitespace and strips comments from the text parts of an
+ * HTML template. A run of whitespace is collapsed into a single newline if it
+ * contains a line break, else into a single space. Whitespace is never removed
+ * completely, because it may be significant between inline elements. Conditional
+ * comments (<!--[if IE]>) are retained. The content of <pre>, <textarea>, <script>
+ * and <style> elements is left alone, and so are quoted attribute values. Since
+ * elements, tags, attribute values and comments may all be interrupted by template
+ * variables, an HtmlMinifier is stateful: the text parts of a template must be fed
+ * to the same instance, in order of appearance.
+ */
+public class HtmlMinifier {
+
+  private static final String[] PRESERVE = {"pre", "textarea", "script", "style"};
+
+  // The element whose content we are in and must preserve, if any
+  private String preserving;
+  // Whether we are inside a tag
+  private boolean inTag;
+  // The quote character of the attribute value we are in, or 0
+  private char quote;
+  // Whether we are inside a comment that was interrupted by a template variable.
+  // Such a comment cannot be stripped anymore, so it is kept as-is.
+  private boolean inComment;
+
+  public String minify(String text) {
+    StringBuilder out = new StringBuilder(text.length());
+    int len = text.length();
+    int i = 0;
+    while (i < len) {
+      if (inComment) {
+        int end = text.indexOf("-->", i);
+        if (end == -1) {
+          out.append(text, i, len);
+          break;
+        }
+        out.append(text, i, end + 3);
+        inComment = false;
+        i = end + 3;
+        continue;
+      }
+      if (inTag) {
+        i = copyTag(text, i, out);
+        continue;
+      }
+      if (preserving != null) {
+        int end = indexOfIgnoreCase(text, "</" + preserving, i);
+        if (end == -1) {
+          out.append(text, i, len);
+          break;
+        }
+        out.append(text, i, end);
+        preserving = null;
+        i = end;
+      }
+      char c = text.charAt(i);
+      if (c == '<' && text.startsWith("<!--", i) && !text.startsWith("<!--[", i)) {
+        int end = text.indexOf("-->", i + 4);
+        if (end == -1) { // comment interrupted by a variable
+          inComment = true;
+          out.append(text, i, len);
+          break;
+        }
+        i = end + 3;
+      } else if (c == '<' && isStartOfTag(text, i + 1)) {
+        preserving = getPreservedElement(text, i);
+        inTag = true;
+        out.append(c);
+        i = copyTag(text, i + 1, out);
+      } else if (Character.isWhitespace(c)) {
+        boolean newline = false;
+        for (; i < len && Character.isWhitespace(text.charAt(i)); ++i) {
+          newline = newline || text.charAt(i) == '\n' || text.charAt(i) == '\r';
+        }
+        appendWhitespace(out, newline);
+      } else {
+        out.append(c);
+        ++i;
+      }
+    }
+    return out.toString();
+  }
+
+  // Copies (the rest of) a tag, collapsing whitespace between attributes but not
+  // within quoted attribute values. Returns the index of the first character after
+  // the tag, or the length of the text if the tag is interrupted by a variable.
+  private int copyTag(String text, int from, StringBuilder out) {
+    int len = text.length();
+    int i = from;
+    while (i < len) {
+      char c = text.charAt(i);
+      if (quote != 0) {
+        int end = text.indexOf(quote, i);
+        if (end == -1) {
+          out.append(text, i, len);
+          return len;
+        }
+        out.append(text, i, end + 1);
+        quote = 0;
+        i = end + 1;
+      } else if (c == '"' || c == '\'') {
+        quote = c;
+        out.append(c);
+        ++i;
+      } else if (c == '>') {
+        inTag = false;
+        out.append(c);
+        return i + 1;
+      } else if (Character.isWhitespace(c)) {
+        boolean newline = false;
+        for (; i < len && Character.isWhitespace(text.charAt(i)); ++i) {
+          newline = newline || text.charAt(i) == '\n' || text.charAt(i) == '\r';
+        }
+        appendWhitespace(out, newline);
+      } else {
+        out.append(c);
+        ++i;
+      }
+    }
+    return len;
+  }
+
+  // Whitespace on both sides of a stripped comment must still collapse into one
+  private static void appendWhitespace(StringBuilder out, boolean newline) {
+    int last = out.length() - 1;
+    if (last != -1 && out.charAt(last) == '\n') {
+      return;
+    } else if (last != -1 && out.charAt(last) == ' ') {
+      if (newline) {
+        out.setCharAt(last, '\n');
+      }
+      return;
+    }
+    out.append(newline ? '\n' : ' ');
+  }
+
+  private static String getPreservedElement(String text, int from) {
+    for (String elem : PRESERVE) {
+      int end = from + 1 + elem.length();
+      if (text.regionMatches(true, from + 1, elem, 0, elem.length())
+          && (end == text.length() || isEndOfTagName(text.charAt(end)))) {
+        return elem;
+      }
+    }
+    return null;
+  }
+
+  // A "<" that is not followed by a letter, "/" or "!" is just text
+  private static boolean isStartOfTag(String text, int i) {
+    if (i == text.length()) {
+      return false;
+    }
+    char c = text.charAt(i);
+    return Character.isLetter(c) || c == '/' || c == '!';
+  }
+
+  private static boolean isEndOfTagName(char c) {
+    return c == '>' || c == '/' || Character.isWhitespace(c);
+  }
+
+  private static int indexOfIgnoreCase(String text, String search, int from) {
+    for (int i = from; i <= text.length() - search.length(); ++i) {
+      if (text.regionMatches(true, i, search, 0, search.length())) {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+}
@@ -26,13 +26,25 @@ public class Regex {
   // By itself used only for error reporting
   public static final String PLACEHOLDER_TAG = "<!--%-->";
 
-  private static Regex instance;
+  // Lazily and safely initialized by the class loader. If the system properties
+  // were invalid at that time, the instance is null, and of() falls back to
+  // creating a new instance on every call, which reports the invalid properties or,
+  // once they have been corrected, succeeds.
+  private static class Holder {
+    static final Regex INSTANCE = create();
+
+    private static Regex create() {
+      try {
+        return new Regex();
+      } catch (ParseException e) {
+        return null;
+      }
+    }
+  }
 
   public static Regex of() throws ParseException {
-    if (instance == null) {
-      return instance = new Regex();
-    }
-    return instance;
+    Regex regex = Holder.INSTANCE;
+    return regex == null ? new Regex() : regex;
   }
 
   public final Pattern variable;
@@ -0,0 +1,57 @@
+package org.klojang.template;
+
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class CompiledLayoutTest {
+
+  private static final String SRC = "id;name;score\n"
+      + "~%%begin:rows%~%id%;~%name%;~%score%\n~%%end:rows%"
+      + "~%%begin:footer%-- end --~%%end:footer%";
+
+  @Test
+  public void render00() throws ParseException, RenderException {
+    Template template = Template.fromString(SRC);
+    Map<String, Object> data = new HashMap<>();
+    data.put("rows", List.of(row(1, "John", 7.5), row(2, "Jos\u00e9", 8)));
+    data.put("footer", List.of(1));
+    CompiledLayout layout = CompiledLayout.compile(template);
+    assertEquals(2, layout.countSlots());
+    StringBuilder sb = new StringBuilder();
+    template.newRenderSession().insert(data).render(sb);
+    assertEquals(sb.toString(), new String(layout.render(data), StandardCharsets.UTF_8));
+    assertEquals("id;name;score\n1;John;7.5\n2;Jos\u00e9;8\n-- end --",
+        new String(layout.render(data), StandardCharsets.UTF_8));
+  }
+
+  @Test
+  public void render01() throws ParseException, RenderException {
+    Template template = Template.fromString(SRC);
+    CompiledLayout layout = CompiledLayout.compile(template);
+    // Missing values leave the slots empty
+    assertEquals("id;name;score\n", new String(layout.render(Map.of()), StandardCharsets.UTF_8));
+    Map<String, Object> data = new HashMap<>();
+    data.put("rows", new Object[] {row(1, "John", 7.5), null});
+    assertThrows(RenderException.class, () -> layout.render(data));
+  }
+
+  @Test
+  public void render02() throws ParseException {
+    CompiledLayout layout = CompiledLayout.compile(Template.fromString(SRC));
+    Map<String, Object> data = new HashMap<>();
+    data.put("rows", List.of(row(1, "John", 7.5)).iterator());
+    assertThrows(RenderException.class, () -> layout.render(data));
+  }
+
+  private static Map<String, Object> row(int id, String name, Number score) {
+    return Map.of("id", id, "name", name, "score", score);
+  }
+
+}
@@ -0,0 +1,117 @@
+package org.klojang.template;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+import java.util.zip.GZIPInputStream;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class CompressedOutputTest {
+
+  private static final String STATIC = "<div class=\"static\">"
+      + "Lorem ipsum dolor sit amet, consectetur adipiscing elit. ".repeat(10)
+      + "</div>\n";
+
+  private static final String SRC = "<html>" + STATIC + "<h1>~%title%</h1>" + STATIC
+      + "<ul>~%%begin:rows%<li>~%name%</li>" + STATIC + "~%%end:rows%</ul>"
+      + "~%%begin:footer%" + STATIC + "~%%end:footer%</html>";
+
+  @Test
+  public void renderCompressed00() throws Exception {
+    Template template = Template.fromString(SRC);
+    for (int level = -1; level <= 9; ++level) {
+      RenderSession session = populate(template.newRenderSession());
+      StringBuilder expected = new StringBuilder();
+      session.render(expected);
+      ByteArrayOutputStream out = new ByteArrayOutputStream();
+      session.createRenderable().renderCompressed(out, level);
+      assertEquals(expected.toString(), gunzip(out.toByteArray()));
+    }
+  }
+
+  @Test
+  public void renderCompressed01() throws Exception {
+    Template template = Template.fromString(SRC);
+    RenderSession session = populate(template.newRenderSession());
+    StringBuilder expected = new StringBuilder();
+    session.render(expected);
+    // Default implementation
+    Renderable renderer = session.createRenderable();
+    Renderable renderable = new Renderable() {
+      @Override
+      public void render(OutputStream out) {
+        renderer.render(out);
+      }
+
+      @Override
+      public void render(StringBuilder sb) {
+        renderer.render(sb);
+      }
+    };
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    renderable.renderCompressed(out, 6);
+    assertEquals(expected.toString(), gunzip(out.toByteArray()));
+  }
+
+  @Test // rows from a lazy source are compressed while they are being read
+  public void renderCompressed02() throws Exception {
+    Template template = Template.fromString(SRC);
+    RenderSession session = template.newRenderSession();
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    int[] written = new int[1];
+    session.set("title", "Lazy");
+    session.populate("rows", IntStream.range(0, 1000).mapToObj(i -> {
+      if (i == 999) {
+        written[0] = out.size();
+      }
+      return Map.of("name", "Name " + i);
+    }));
+    session.show("footer");
+    session.createRenderable().renderCompressed(out, 6);
+    StringBuilder expected = new StringBuilder("<html>" + STATIC + "<h1>Lazy</h1>" + STATIC + "<ul>");
+    for (int i = 0; i < 1000; ++i) {
+      expected.append("<li>Name ").append(i).append("</li>").append(STATIC);
+    }
+    expected.append("</ul>").append(STATIC).append("</html>");
+    assertEquals(expected.toString(), gunzip(out.toByteArray()));
+    assertTrue(written[0] > out.size() / 2);
+  }
+
+  @Test
+  public void segment00() throws ParseException {
+    Template template = Template.fromString(SRC);
+    TextPart part = (TextPart) template.getParts().get(0);
+    assertSame(part.getSegment(6), part.getSegment(6));
+    TextPart small = (TextPart) template.getNestedTemplate("rows").getParts().get(0);
+    assertEquals(null, small.getSegment(6));
+  }
+
+  private static RenderSession populate(RenderSession session) throws RenderException {
+    List<Map<String, Object>> rows = new ArrayList<>();
+    for (int i = 0; i < 100; ++i) {
+      rows.add(Map.of("name", "Name \u00e9\u20ac " + i));
+    }
+    session.set("title", "Hello & goodbye");
+    session.populate("rows", rows);
+    session.show("footer");
+    return session;
+  }
+
+  private static String gunzip(byte[] bytes) throws IOException {
+    try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(bytes))) {
+      return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+    }
+  }
+
+}
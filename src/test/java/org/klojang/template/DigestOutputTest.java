@@ -0,0 +1,95 @@
+package org.klojang.template;
+
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class DigestOutputTest {
+
+  private static final String STATIC = "<p>"
+      + "Lorem ipsum dolor sit amet, consectetur adipiscing elit. ".repeat(5)
+      + "</p>\n";
+
+  private static final String SRC = "<html>" + STATIC + "<h1>~%title%</h1>"
+      + "<ul>~%%begin:rows%<li>~%name%</li>" + STATIC + "~%%end:rows%</ul></html>";
+
+  @Test
+  public void renderWithETag00() throws Exception {
+    Template template = Template.fromString(SRC);
+    Renderable renderable = populate(template.newRenderSession(), "foo").createRenderable();
+    StringBuilder sb = new StringBuilder();
+    renderable.render(sb);
+    byte[] expected = sb.toString().getBytes(StandardCharsets.UTF_8);
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    String etag = renderable.renderWithETag(out);
+    assertEquals(sb.toString(), out.toString(StandardCharsets.UTF_8));
+    byte[] hash = MessageDigest.getInstance("SHA-256").digest(expected);
+    assertEquals('"' + Base64.getUrlEncoder().withoutPadding().encodeToString(hash) + '"', etag);
+    assertEquals(etag, renderable.getETag());
+  }
+
+  @Test // render(OutputStream) must produce the bytes the ETag is computed over
+  public void renderWithETag01() throws Exception {
+    Template template = Template.fromString(SRC);
+    String title = "Caf\u00e9 \u20ac";
+    Renderable renderable = populate(template.newRenderSession(), title).createRenderable();
+    ByteArrayOutputStream out0 = new ByteArrayOutputStream();
+    String etag = renderable.renderWithETag(out0);
+    ByteArrayOutputStream out1 = new ByteArrayOutputStream();
+    renderable.render(out1);
+    assertArrayEquals(out0.toByteArray(), out1.toByteArray());
+    ByteArrayOutputStream out2 = new ByteArrayOutputStream();
+    renderable.render(new PrintStream(out2, true, StandardCharsets.ISO_8859_1));
+    assertArrayEquals(out0.toByteArray(), out2.toByteArray());
+    byte[] hash = MessageDigest.getInstance("SHA-256").digest(out1.toByteArray());
+    assertEquals('"' + Base64.getUrlEncoder().withoutPadding().encodeToString(hash) + '"', etag);
+    assertTrue(out1.toString(StandardCharsets.UTF_8).contains("<h1>" + title + "</h1>"));
+  }
+
+  @Test
+  public void getETag00() throws Exception {
+    Template template = Template.fromString(SRC);
+    Renderable renderable = populate(template.newRenderSession(), "foo").createRenderable();
+    // Default implementation
+    Renderable other = new Renderable() {
+      @Override
+      public void render(OutputStream out) {
+        renderable.render(out);
+      }
+
+      @Override
+      public void render(StringBuilder sb) {
+        renderable.render(sb);
+      }
+    };
+    assertEquals(renderable.getETag(), other.getETag());
+    assertEquals(renderable.getETag(), other.renderWithETag(new ByteArrayOutputStream()));
+    Renderable bar = populate(template.newRenderSession(), "bar").createRenderable();
+    assertNotEquals(renderable.getETag(), bar.getETag());
+  }
+
+  private static RenderSession populate(RenderSession session, String title)
+      throws RenderException {
+    List<Map<String, Object>> rows = new ArrayList<>();
+    for (int i = 0; i < 100; ++i) {
+      rows.add(Map.of("name", "Name \u00e9\u20ac " + i));
+    }
+    session.set("title", title);
+    session.populate("rows", rows);
+    return session;
+  }
+
+}
@@ -0,0 +1,82 @@
+package org.klojang.template;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class FootprintEstimatorTest {
+
+  @Test
+  public void estimateFootprint00() throws ParseException {
+    String text = "x".repeat(10_000);
+    long small = TemplateUtils.estimateFootprint(Template.fromString("x~%foo%"));
+    long large = TemplateUtils.estimateFootprint(Template.fromString(text + "~%foo%"));
+    assertTrue(small > 0);
+    assertTrue(large - small >= 9_900, large + " - " + small);
+    assertTrue(large - small < 12_000, large + " - " + small);
+  }
+
+  @Test // text shared by two inclusions of the same template is counted once
+  public void estimateFootprint01() throws ParseException {
+    Template included = Template.fromResource(getClass(), "TemplateTest.departments.html");
+    String src = "<div>~%%include:top:TemplateTest.departments.html%</div>"
+        + "<div>~%%include:bottom:TemplateTest.departments.html%</div>";
+    Template t0 = Template.fromString(getClass(), src);
+    long once = TemplateUtils.estimateFootprint(included);
+    long twice = TemplateUtils.estimateFootprint(t0);
+    assertTrue(twice > once);
+    assertTrue(twice < 2 * once, twice + " vs " + once);
+  }
+
+  @Test
+  public void estimateRetainedSize00() throws ParseException, RenderException {
+    Template t0 = Template.fromString("~%title%~%%begin:rows%<td>~%name%</td>~%%end:rows%");
+    RenderSession rs = t0.newRenderSession();
+    long empty = rs.estimateRetainedSize();
+    rs.set("title", "x".repeat(1000));
+    long withTitle = rs.estimateRetainedSize();
+    assertTrue(withTitle - empty >= 1000, withTitle + " - " + empty);
+    rs.populate("rows", List.of(Map.of("name", "John"), Map.of("name", "Mary")));
+    assertTrue(rs.estimateRetainedSize() > withTitle);
+  }
+
+  @Test
+  public void printTemplateCache00() throws ParseException {
+    Template.fromResource(getClass(), "TemplateTest.departments.html");
+    ByteArrayOutputStream baos = new ByteArrayOutputStream();
+    TemplateUtils.printTemplateCache(new PrintStream(baos, true, StandardCharsets.UTF_8), 1);
+    String[] lines = baos.toString(StandardCharsets.UTF_8).split("\n");
+    assertTrue(lines[0].startsWith("PATH"));
+    assertEquals(5, lines.length);
+    assertTrue(lines[4].startsWith("TOTAL"));
+  }
+
+  @Test // 12-byte header + 3 references + long + int + boolean, aligned to 8 bytes
+  public void shallowSize00() {
+    assertEquals(40, FootprintEstimator.shallowSize(Sample.class));
+    assertEquals(16, FootprintEstimator.shallowSize(Object.class));
+  }
+
+  @SuppressWarnings("unused")
+  private static class SampleBase {
+    private static final long IGNORED = 0;
+    private String a;
+    private long b;
+  }
+
+  @SuppressWarnings("unused")
+  private static class Sample extends SampleBase {
+    private List<String> c;
+    private Map<String, String> d;
+    private int e;
+    private boolean f;
+  }
+
+}
@@ -0,0 +1,60 @@
+package org.klojang.template;
+
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.klojang.template.AccessorRegistry.STANDARD_ACCESSORS;
+import static org.klojang.template.StringifierRegistry.STANDARD_STRINGIFIERS;
+
+public class FragmentCacheTest {
+
+  private static final String SRC = "<ul>~%%begin:rows%<li>~%name%</li>~%%end:rows%</ul>";
+
+  @Test
+  public void test00() throws ParseException, RenderException {
+    Template template = Template.fromString(SRC);
+    FragmentCache cache = FragmentCache.configure()
+        .register(obj -> ((Map<?, ?>) obj).get("id"), template, "rows")
+        .freeze();
+    RenderSession session = newSession(template, cache);
+    session.populate("rows", List.of(row(1, "John"), row(2, "Mark")));
+    assertEquals("<ul><li>John</li><li>Mark</li></ul>", session.render());
+    assertEquals(2, cache.countEntries());
+    assertEquals(26, cache.getSize());
+    // Same keys, different names: the cached output must be used
+    session = newSession(template, cache);
+    session.populate("rows", List.of(row(1, "Paul"), row(3, "Anna")));
+    assertEquals("<ul><li>John</li><li>Anna</li></ul>", session.render());
+    assertEquals(3, cache.countEntries());
+  }
+
+  @Test
+  public void test01() throws ParseException, RenderException {
+    Template template = Template.fromString(SRC);
+    FragmentCache cache = FragmentCache.configure()
+        .setMaxEntries(2)
+        .register(obj -> ((Map<?, ?>) obj).get("id"), template, "rows")
+        .freeze();
+    RenderSession session = newSession(template, cache);
+    session.populate("rows", List.of(row(1, "John"), row(2, "Mark"), row(3, "Anna")));
+    assertEquals("<ul><li>John</li><li>Mark</li><li>Anna</li></ul>", session.render());
+    assertEquals(2, cache.countEntries());
+    cache.invalidate(template, "rows", 3);
+    assertEquals(1, cache.countEntries());
+    session = newSession(template, cache);
+    session.populate("rows", List.of(row(2, "Paul"), row(3, "Anna")));
+    assertEquals("<ul><li>Mark</li><li>Anna</li></ul>", session.render());
+  }
+
+  private static RenderSession newSession(Template template, FragmentCache cache) {
+    return template.newRenderSession(STANDARD_ACCESSORS, STANDARD_STRINGIFIERS, cache);
+  }
+
+  private static Map<String, Object> row(int id, String name) {
+    return Map.of("id", id, "name", name);
+  }
+
+}
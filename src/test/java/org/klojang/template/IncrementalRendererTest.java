@@ -0,0 +1,65 @@
+package org.klojang.template;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import org.klojang.template.IncrementalRenderer.Patch;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class IncrementalRendererTest {
+
+  private static final String SRC = "<h1>~%title%</h1><p>~%visitors%</p>"
+      + "<ul>~%%begin:rows%<li>~%name%</li>~%%end:rows%</ul>";
+
+  @Test
+  public void update00() throws ParseException, RenderException {
+    Template template = Template.fromString(SRC);
+    RenderSession session = template.newRenderSession();
+    session.set("title", "Stats").set("visitors", 10);
+    session.populate("rows", List.of(Map.of("name", "John")));
+    IncrementalRenderer renderer = session.createIncrementalRenderer();
+    String doc = toString(renderer.render());
+    assertEquals("<h1>Stats</h1><p>10</p><ul><li>John</li></ul>", doc);
+    assertEquals(List.of(), renderer.update());
+
+    session.unset("visitors").set("visitors", 12);
+    List<Patch> patches = renderer.update();
+    assertEquals(1, patches.size());
+    Patch patch = patches.get(0);
+    assertEquals("visitors", patch.getName());
+    assertEquals(3, patch.getRegion());
+    assertEquals(doc.indexOf("10"), patch.getOffset());
+    assertEquals(2, patch.getLength());
+    assertEquals("12", toString(patch.getBytes()));
+
+    // Same value again: nothing changes
+    session.unset("visitors").set("visitors", 12);
+    assertEquals(List.of(), renderer.update());
+
+    session.unset("rows").populate("rows", List.of(Map.of("name", "Mark")));
+    session.unset("title").set("title", "Statistics");
+    patches = renderer.update();
+    assertEquals(2, patches.size());
+    assertEquals("title", patches.get(0).getName());
+    assertEquals("rows", patches.get(1).getName());
+    assertEquals(doc.indexOf("<li>"), patches.get(1).getOffset());
+    assertEquals("<h1>Statistics</h1><p>12</p><ul><li>Mark</li></ul>",
+        toString(renderer.getDocument()));
+  }
+
+  @Test
+  public void update01() throws ParseException, RenderException {
+    Template template = Template.fromString(SRC);
+    IncrementalRenderer renderer = template.newRenderSession().createIncrementalRenderer();
+    assertThrows(IllegalStateException.class, renderer::update);
+  }
+
+  private static String toString(byte[] bytes) {
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+
+}
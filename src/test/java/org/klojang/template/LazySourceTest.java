@@ -0,0 +1,113 @@
+package org.klojang.template;
+
+import java.io.ByteArrayOutputStream;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.Test;
+import org.klojang.KlojangRTException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class LazySourceTest {
+
+  private static final String SRC = "<ul>~%%begin:rows%<li>~%name%</li>~%%end:rows%</ul>";
+
+  @Test
+  public void stream00() throws ParseException, RenderException {
+    Template template = Template.fromString(SRC);
+    RenderSession session = template.newRenderSession();
+    session.populate("rows", IntStream.range(0, 100_000).mapToObj(i -> Map.of("name", i)));
+    StringBuilder expected = new StringBuilder("<ul>");
+    IntStream.range(0, 100_000).forEach(i -> expected.append("<li>").append(i).append("</li>"));
+    expected.append("</ul>");
+    assertEquals(expected.toString(), session.render());
+  }
+
+  @Test
+  public void iterator00() throws ParseException, RenderException {
+    Template template = Template.fromString(SRC);
+    RenderSession session = template.newRenderSession();
+    Iterator<Map<String, String>> iter = List.of(Map.of("name", "John")).iterator();
+    Renderable renderable = session.populate("rows", iter).createRenderable();
+    StringBuilder sb = new StringBuilder();
+    renderable.render(sb);
+    assertEquals("<ul><li>John</li></ul>", sb.toString());
+    assertThrows(KlojangRTException.class, () -> renderable.render(new StringBuilder()));
+  }
+
+  @Test
+  public void iterable00() throws ParseException, RenderException {
+    Template template = Template.fromString(SRC);
+    RenderSession session = template.newRenderSession();
+    List<Map<String, String>> list = List.of(Map.of("name", "John"), Map.of("name", "Mark"));
+    Iterable<Map<String, String>> iterable = list::iterator;
+    Renderable renderable = session.populate("rows", LazyIterable.of(iterable)).createRenderable();
+    for (int i = 0; i < 2; ++i) {
+      StringBuilder sb = new StringBuilder();
+      renderable.render(sb);
+      assertEquals("<ul><li>John</li><li>Mark</li></ul>", sb.toString());
+    }
+  }
+
+  @Test // an Iterable that is not wrapped in a LazyIterable is a single source data object
+  public void iterable01() throws ParseException, RenderException {
+    Template template = Template.fromString(SRC);
+    RenderSession session = template.newRenderSession();
+    session.populate("rows", new Person());
+    assertEquals("<ul><li>John</li></ul>", session.render());
+  }
+
+  public static class Person implements Iterable<String> {
+    public String getName() {
+      return "John";
+    }
+
+    @Override
+    public Iterator<String> iterator() {
+      return List.of("Mark", "Paul").iterator();
+    }
+  }
+
+  @Test
+  public void multiPass00() throws ParseException, RenderException {
+    Template template = Template.fromString(SRC);
+    RenderSession session = template.newRenderSession();
+    session.populate("rows", List.of(Map.of("name", "John")).stream());
+    assertThrows(RenderException.class,
+        () -> session.populate("rows", List.of(Map.of("name", "John"))));
+  }
+
+  @Test // getETag() must not drain a Stream that is still to be rendered
+  public void getETag00() throws ParseException, RenderException {
+    Template template = Template.fromString("<div>" + SRC + "</div>");
+    RenderSession session = template.newRenderSession();
+    Renderable renderable = session
+        .populate("rows", List.of(Map.of("name", "John")).stream())
+        .createRenderable();
+    KlojangRTException e = assertThrows(KlojangRTException.class, renderable::getETag);
+    assertTrue(e.getCause() instanceof RenderException);
+    StringBuilder sb = new StringBuilder();
+    renderable.render(sb);
+    assertEquals("<div><ul><li>John</li></ul></div>", sb.toString());
+  }
+
+  @Test // text-only templates only need the number of elements
+  public void getETag01() throws ParseException, RenderException {
+    Template template = Template.fromString("<ul>~%%begin:rows%<li/>~%%end:rows%</ul>");
+    RenderSession session = template.newRenderSession();
+    Renderable renderable = session
+        .populate("rows", IntStream.range(0, 3).boxed())
+        .createRenderable();
+    String etag = renderable.getETag();
+    StringBuilder sb = new StringBuilder();
+    renderable.render(sb);
+    assertEquals("<ul><li/><li/><li/></ul>", sb.toString());
+    assertEquals(etag, renderable.renderWithETag(new ByteArrayOutputStream()));
+  }
+
+}
@@ -0,0 +1,65 @@
+package org.klojang.template;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class LeafColumnsTest {
+
+  private static final String SRC =
+      "<table>~%%begin:rows%<tr><td>~%id%</td><td>~%html:name%</td></tr>~%%end:rows%</table>";
+
+  @Test
+  public void test00() throws ParseException, RenderException {
+    Template template = Template.fromString(SRC);
+    List<Map<String, Object>> rows = new ArrayList<>();
+    StringBuilder expected = new StringBuilder("<table>");
+    for (int i = 0; i < 50_000; ++i) {
+      rows.add(Map.of("id", i, "name", "<" + i + ">"));
+      expected.append("<tr><td>")
+          .append(i)
+          .append("</td><td>&lt;")
+          .append(i)
+          .append("&gt;</td></tr>");
+    }
+    expected.append("</table>");
+    RenderSession session = template.newRenderSession();
+    session.populate("rows", rows);
+    assertTrue(session.isFullyPopulated());
+    assertEquals(expected.toString(), session.render());
+  }
+
+  @Test // multi-pass population
+  public void test01() throws ParseException, RenderException {
+    Template template = Template.fromString(SRC);
+    RenderSession session = template.newRenderSession();
+    session.populate("rows", List.of(Map.of("id", 1), Map.of("id", 2)), "id");
+    assertFalse(session.isFullyPopulated());
+    session.populate("rows", List.of(Map.of("name", "John"), Map.of("name", "Mark")));
+    assertTrue(session.isFullyPopulated());
+    String expected = "<table><tr><td>1</td><td>John</td></tr>"
+        + "<tr><td>2</td><td>Mark</td></tr></table>";
+    assertEquals(expected, session.render());
+  }
+
+  @Test // child sessions requested after populating
+  public void test02() throws ParseException, RenderException {
+    Template template = Template.fromString(SRC);
+    RenderSession session = template.newRenderSession();
+    session.populate("rows", List.of(Map.of("id", 1), Map.of("id", 2)));
+    List<RenderSession> children = session.getChildSessions("rows");
+    assertEquals(2, children.size());
+    children.get(0).set("name", "John");
+    children.get(1).set("name", "Mark");
+    String expected = "<table><tr><td>1</td><td>John</td></tr>"
+        + "<tr><td>2</td><td>Mark</td></tr></table>";
+    assertEquals(expected, session.render());
+  }
+
+}
@@ -0,0 +1,109 @@
+package org.klojang.template;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.klojang.template.MetricsRecorder.TemplateStats;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class MetricsRecorderTest {
+
+  private static final String SRC = "<h1>~%title%</h1><ul>~%%begin:rows%<li>~%name%</li>~%%end:rows%</ul>";
+
+  @AfterEach
+  public void uninstall() {
+    RenderMetrics.install(null);
+  }
+
+  @Test
+  public void record00() throws ParseException, RenderException {
+    MetricsRecorder recorder = new MetricsRecorder();
+    RenderMetrics.install(recorder);
+    Template template = Template.fromString(SRC);
+    StringifierRegistry stringifiers = StringifierRegistry.configure()
+        .registerByName(MetricsRecorderTest::slowToString, "title")
+        .freeze();
+    RenderSession session = template.newRenderSession(stringifiers);
+    session.set("title", "Names");
+    session.populate("rows", List.of(Map.of("name", "John"), Map.of("name", "Mark")));
+    session.render();
+    TemplateStats root = recorder.getStats(template);
+    assertEquals(1, root.getParseTimes().getCount());
+    assertEquals(1, root.getSessionLifetimes().getCount());
+    assertEquals(1, root.getSlowStringifiers());
+    TemplateStats rows = recorder.getStats(template.getNestedTemplate("rows"));
+    assertEquals(1, rows.getRenderTimes().getCount());
+    assertEquals("<li>John</li><li>Mark</li>".length(), rows.getRenderLengths().getTotal());
+    assertTrue(recorder.getStats().containsKey("rows"));
+    assertTrue(rows.getRenderTimes().getPercentile(50) >= rows.getRenderTimes().getMax() / 2);
+  }
+
+  @Test // lengths are counted while rendering to a stream, at every nesting level
+  public void record01() throws ParseException, RenderException {
+    MetricsRecorder recorder = new MetricsRecorder();
+    RenderMetrics.install(recorder);
+    Template template = Template.fromString(
+        "<ul>~%%begin:rows%<li>~%name%<ol>~%%begin:items%<li>~%item%</li>~%%end:items%</ol></li>"
+            + "~%%end:rows%</ul>");
+    RenderSession session = template.newRenderSession();
+    session.populate("rows", List.of(
+        Map.of("name", "John", "items", List.of(Map.of("item", "a"), Map.of("item", "b"))),
+        Map.of("name", "Mark", "items", List.of(Map.of("item", "c")))));
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    session.render(out);
+    String rows = "<li>John<ol><li>a</li><li>b</li></ol></li><li>Mark<ol><li>c</li></ol></li>";
+    assertEquals("<ul>" + rows + "</ul>", out.toString());
+    Template nested = template.getNestedTemplate("rows");
+    assertEquals(rows.length(), recorder.getStats(nested).getRenderLengths().getTotal());
+    TemplateStats items = recorder.getStats(nested.getNestedTemplate("items"));
+    assertEquals(2, items.getRenderTimes().getCount());
+    assertEquals("<li>a</li><li>b</li><li>c</li>".length(), items.getRenderLengths().getTotal());
+  }
+
+  @Test
+  public void flightRecorder00() throws Exception {
+    Path file = Files.createTempFile("klojang", ".jfr");
+    try (Recording recording = new Recording()) {
+      recording.enable("org.klojang.TemplateParse");
+      recording.enable("org.klojang.RenderSession");
+      recording.enable("org.klojang.NestedTemplateRender");
+      recording.start();
+      Template template = Template.fromString(SRC);
+      RenderSession session = template.newRenderSession();
+      session.populate("rows", List.of(Map.of("name", "John")));
+      session.render();
+      recording.stop();
+      recording.dump(file);
+    }
+    List<String> names = RecordingFile.readAllEvents(file)
+        .stream()
+        .map(RecordedEvent::getEventType)
+        .map(type -> type.getName())
+        .collect(Collectors.toList());
+    Files.delete(file);
+    assertTrue(names.contains("org.klojang.TemplateParse"));
+    assertTrue(names.contains("org.klojang.RenderSession"));
+    assertTrue(names.contains("org.klojang.NestedTemplateRender"));
+  }
+
+  private static String slowToString(Object obj) {
+    try {
+      Thread.sleep(2);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+    return String.valueOf(obj);
+  }
+
+}
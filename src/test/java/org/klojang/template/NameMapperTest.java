@@ -0,0 +1,40 @@
+package org.klojang.template;
+
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import org.klojang.util.namemappers.CamelCaseToSnakeLowerCase;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class NameMapperTest {
+
+  @Test
+  public void cached00() {
+    CachedNameMapper nm = (CachedNameMapper) NameMapper.cached(String::toUpperCase, 2);
+    assertEquals("FOO", nm.map("foo"));
+    assertEquals("FOO", nm.map("foo"));
+    assertEquals("BAR", nm.map("bar"));
+    assertEquals("BOZO", nm.map("bozo"));
+    assertEquals(2, nm.size());
+    assertSame(nm, NameMapper.cached(nm));
+    assertSame(NameMapper.AS_IS, NameMapper.cached(NameMapper.AS_IS));
+  }
+
+  @Test // built-in name mappers are cached automatically
+  public void cached01() throws ParseException, RenderException {
+    Template template = Template.fromString("~%firstName%");
+    AccessorRegistry accessors = AccessorRegistry.standard(new CamelCaseToSnakeLowerCase());
+    assertTrue(accessors.getNameMapper(template) instanceof CachedNameMapper);
+    String out = template.newRenderSession(accessors)
+        .insert(Map.of("first_name", "John"))
+        .render();
+    assertEquals("John", out);
+    NameMapper custom = String::toLowerCase;
+    accessors = AccessorRegistry.standard(custom);
+    assertSame(custom, accessors.getNameMapper(template));
+  }
+
+}
@@ -0,0 +1,97 @@
+package org.klojang.template;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class ParallelismTest {
+
+  private static final String SRC = "<table>~%%begin:rows%<tr>"
+      + "<td>~%html:name%</td>"
+      + "<td>~%%begin:tags%<i>~%tag%</i>~%%end:tags%</td>"
+      + "</tr>~%%end:rows%</table>";
+
+  @Test
+  public void render00() throws ParseException, RenderException {
+    Template template = Template.fromString(SRC);
+    RenderSession session = template.newRenderSession();
+    session.populate("rows", createData(10_000));
+    String expected = render(session.createRenderable());
+    String actual = render(session.createRenderable(Parallelism.withThreshold(2)));
+    assertEquals(expected, actual);
+  }
+
+  @Test
+  public void populate00() throws ParseException, RenderException {
+    Template template = Template.fromString(SRC);
+    RenderSession session0 = template.newRenderSession();
+    session0.populate("rows", createData(10_000));
+    RenderSession session1 = template.newRenderSession();
+    session1.populate("rows", createData(10_000), Parallelism.withThreshold(2));
+    assertEquals(session0.render(), session1.render());
+  }
+
+  @Test
+  public void populate01() throws ParseException, RenderException {
+    Template template = Template.fromString("~%%begin:rows%<li>~%name%</li>~%%end:rows%");
+    List<Map<String, Object>> data = new ArrayList<>();
+    for (int i = 0; i < 10_000; ++i) {
+      data.add(Map.of("name", i));
+    }
+    RenderSession session0 = template.newRenderSession();
+    session0.populate("rows", data);
+    RenderSession session1 = template.newRenderSession();
+    session1.populate("rows", data, Parallelism.withThreshold(2));
+    assertEquals(session0.render(), session1.render());
+  }
+
+  @Test
+  public void populate02() throws ParseException {
+    Template template = Template.fromString("~%%begin:rows%~%name%~%%end:rows%");
+    List<Map<String, Object>> data = new ArrayList<>();
+    for (int i = 0; i < 1000; ++i) {
+      data.add(Map.of("name", i));
+    }
+    StringifierRegistry stringifiers = StringifierRegistry.configure()
+        .registerByName(x -> (Integer) x > 900 ? null : x.toString(), "name")
+        .freeze();
+    RenderSession session = template.newRenderSession(stringifiers);
+    assertThrows(BadStringifierException.class,
+        () -> session.populate("rows", data, Parallelism.withThreshold(2)));
+  }
+
+  @Test
+  public void set00() throws ParseException, RenderException {
+    Template template = Template.fromString("<ul>~%html:item%</ul>");
+    List<String> values = new ArrayList<>();
+    for (int i = 0; i < 10_000; ++i) {
+      values.add("<" + i + ">");
+    }
+    RenderSession session0 = template.newRenderSession();
+    session0.set("item", values, null, "<li>", "\n", "</li>");
+    RenderSession session1 = template.newRenderSession();
+    session1.set("item", values, null, "<li>", "\n", "</li>", Parallelism.withThreshold(2));
+    assertEquals(session0.render(), session1.render());
+  }
+
+  private static String render(Renderable renderable) {
+    StringBuilder sb = new StringBuilder();
+    renderable.render(sb);
+    return sb.toString();
+  }
+
+  private static List<Map<String, Object>> createData(int size) {
+    List<Map<String, Object>> data = new ArrayList<>(size);
+    for (int i = 0; i < size; ++i) {
+      List<Map<String, Object>> tags = List.of(Map.of("tag", "a" + i), Map.of("tag", "b" + i));
+      data.add(Map.of("name", "<" + i + ">", "tags", tags));
+    }
+    return data;
+  }
+
+}
@@ -6,6 +6,7 @@ import org.junit.jupiter.api.Test;
 import nl.naturalis.common.IOMethods;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.klojang.SysProp.MINIFY_HTML;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
@@ -178,6 +179,35 @@ public class ParserTest {
         });
   }
 
+  @Test
+  public void mergeTextParts00() throws ParseException {
+    String src = "<tr><!--%%-->ditched<!--%%--><td>~%foo%</td><!--%%-->ditched<!--%%--></tr>";
+    Template template = Template.fromString(src);
+    List<Part> parts = template.getParts();
+    assertEquals(3, parts.size());
+    assertEquals("<tr><td>", ((TextPart) parts.get(0)).getText());
+    assertEquals("</td></tr>", ((TextPart) parts.get(2)).getText());
+    assertEquals(18, template.getStaticLength());
+  }
+
+  @Test
+  public void mergeTextParts01() throws ParseException, RenderException {
+    String src = "~%%include:foo:ParserTest.mergeTextParts01.html%";
+    Template template = Template.fromString(getClass(), src);
+    assertEquals(1, template.getNestedTemplate("foo").getParts().size());
+    String actual = template.newRenderSession().show(3, "foo").render();
+    assertEquals("<p></p><p></p><p></p>", actual);
+  }
+
+  @Test
+  public void emptyTemplate00() throws ParseException, RenderException {
+    Template template = Template.fromString("<ul>~%%begin:foo%~%%end:foo%</ul>");
+    assertEquals(0, template.getNestedTemplate("foo").getParts().size());
+    assertEquals("<ul></ul>", template.newRenderSession().show(2, "foo").render());
+    template = Template.fromString("");
+    assertEquals("", template.newRenderSession().render());
+  }
+
   @Test
   public void allTogetherNow00() throws ParseException {
     String path = "ParserTest.allTogetherNow00.html";
@@ -185,4 +215,39 @@ public class ParserTest {
     TemplateUtils.printParts(template, System.out);
   }
 
+  @Test // text parts split by variables inside a <pre> and inside a comment
+  public void minify00() throws ParseException, RenderException {
+    System.setProperty(MINIFY_HTML.property(), "true");
+    try {
+      Template template = Template.fromResource(getClass(), "ParserTest.minify00.html");
+      RenderSession session = template.newRenderSession();
+      session.set("foo", "X");
+      session.set("bar", "Y");
+      String expected = "<div>\n<pre class=\"code\">  a\n    X   b\n</pre>\n"
+          + "<!-- keep   Y   this -->\n<input value=\"a   X   b\">\n</div>";
+      assertEquals(expected, session.render());
+    } finally {
+      System.clearProperty(MINIFY_HTML.property());
+    }
+  }
+
+  @Test // only HTML files are minified
+  public void minify01() throws ParseException, RenderException {
+    System.setProperty(MINIFY_HTML.property(), "true");
+    try {
+      Template template = Template.fromResource(getClass(), "ParserTest.minify01.csv");
+      RenderSession session = template.newRenderSession();
+      session.set("foo", "X");
+      session.set("bar", "Y");
+      String expected = "a,   b,   c\nX,   <!--  x  -->,   Y\n";
+      assertEquals(expected, session.render());
+      String src = "<p>   ~%foo%   </p>";
+      session = Template.fromString(src).newRenderSession();
+      session.set("foo", "X");
+      assertEquals("<p>   X   </p>", session.render());
+    } finally {
+      System.clearProperty(MINIFY_HTML.property());
+    }
+  }
+
 }
@@ -1,5 +1,7 @@
 package org.klojang.template;
 
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
@@ -80,4 +82,18 @@ public class RenderSessionTest00 {
     assertEquals(expected, actual);
   }
 
+  @Test
+  public void setList00() throws ParseException, RenderException {
+    Template template = Template.fromString("<ul>~%tags%</ul><p>~%ids%</p><p>~%none%</p>");
+    RenderSession session = template.newRenderSession()
+        .set("tags", List.of("a", "b", "c"), null, "<li>", "", "</li>")
+        .set("ids", List.of(1, 2, 3), ", ")
+        .set("none", List.of());
+    String expected = "<ul><li>a</li><li>b</li><li>c</li></ul><p>1, 2, 3</p><p></p>";
+    assertEquals(expected, session.render());
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    session.render(out);
+    assertEquals(expected, out.toString(StandardCharsets.UTF_8));
+  }
+
 }
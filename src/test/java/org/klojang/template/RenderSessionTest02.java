@@ -42,7 +42,7 @@ public class RenderSessionTest02 {
     assertEquals(expected, actual);
   }
 
-  private static List<Employee> getEmployees() {
+  static List<Employee> getEmployees() {
     return List.of(
         new Employee(
             "Richard Dawkins",
@@ -57,7 +57,7 @@ public class RenderSessionTest02 {
             LocalDate.of(1961, 10, 29)));
   }
 
-  private static Employee getManager() {
+  static Employee getManager() {
     return new Employee(
         "Albert Einstein",
         new Address("Einstein rd.", 2),
@@ -0,0 +1,87 @@
+package org.klojang.template;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class RenderStateTest {
+
+  private static final String SRC = "~%title%~%%begin:companies%~%name%"
+      + "~%%begin:departments%~%name%~%%end:departments%~%%end:companies%";
+
+  @Test // readiness propagates all the way up
+  public void isFullyPopulated00() throws ParseException, RenderException {
+    Template template = Template.fromString(SRC);
+    RenderSession session = template.newRenderSession();
+    session.set("title", "Companies");
+    assertTrue(session.isFullyPopulated());
+    RenderSession company = session.in("companies");
+    assertFalse(session.isFullyPopulated());
+    company.set("name", "Acme");
+    assertTrue(session.isFullyPopulated());
+    RenderSession dept = company.in("departments");
+    assertFalse(company.isFullyPopulated());
+    assertFalse(session.isFullyPopulated());
+    assertEquals(List.of("companies.departments.name"), session.getState().getUnsetCars());
+    dept.set("name", "R&D");
+    assertTrue(session.isFullyPopulated());
+    dept.unset("name");
+    assertFalse(session.isFullyPopulated());
+    company.unset("departments");
+    assertTrue(session.isFullyPopulated());
+  }
+
+  @Test // parallel population of leaf and non-leaf templates
+  public void isFullyPopulated01() throws ParseException, RenderException {
+    Template template = Template.fromString(SRC);
+    List<Map<String, Object>> data = new ArrayList<>();
+    for (int i = 0; i < 5000; ++i) {
+      data.add(Map.of("name", "c" + i, "departments", List.of(Map.of("name", "d" + i))));
+    }
+    RenderSession session = template.newRenderSession();
+    session.populate("companies", data, null, Parallelism.withThreshold(2), "departments");
+    assertEquals(10001, session.getState().getUnsetCars().size());
+    for (RenderSession company : session.getChildSessions("companies")) {
+      company.getChildSessions("departments").get(0).set("name", "x");
+    }
+    assertEquals(5001, session.getState().getUnsetCars().size());
+    session.populate("companies", data, null, Parallelism.withThreshold(2), "name");
+    assertFalse(session.isFullyPopulated());
+    session.set("title", "Companies");
+    assertTrue(session.isFullyPopulated());
+    session.unset("companies");
+    session.populate("companies", data, Parallelism.withThreshold(2));
+    assertTrue(session.isFullyPopulated());
+  }
+
+  @Test // freezing the root session freezes all child sessions
+  public void freeze00() throws ParseException, RenderException {
+    Template template = Template.fromString(SRC);
+    RenderSession session = template.newRenderSession();
+    RenderSession dept = session.in("companies").in("departments");
+    session.createRenderable();
+    assertThrows(RenderException.class, () -> dept.set("name", "R&D"));
+  }
+
+  @Test // freezing a child session leaves its parent alone
+  public void freeze01() throws ParseException, RenderException {
+    Template template = Template.fromString(SRC);
+    RenderSession session = template.newRenderSession();
+    RenderSession company = session.in("companies");
+    RenderSession dept = company.in("departments");
+    company.createRenderable();
+    assertTrue(dept.getState().isFrozen());
+    assertFalse(session.getState().isFrozen());
+    session.set("title", "Companies");
+    session.createRenderable();
+    assertTrue(session.getState().isFrozen());
+  }
+
+}
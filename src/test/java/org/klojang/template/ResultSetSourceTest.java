@@ -0,0 +1,64 @@
+package org.klojang.template;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.klojang.util.namemappers.CamelCaseToSnakeUpperCase;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class ResultSetSourceTest {
+
+  private Connection con;
+
+  @BeforeEach
+  public void before() throws SQLException {
+    con = DriverManager.getConnection("jdbc:h2:mem:");
+    try (Statement stmt = con.createStatement()) {
+      stmt.executeUpdate("CREATE TABLE PERSON(ID INT, FULL_NAME VARCHAR(255))");
+      stmt.executeUpdate("INSERT INTO PERSON VALUES(1, 'John & Mary')");
+      stmt.executeUpdate("INSERT INTO PERSON VALUES(2, 'Mark')");
+      stmt.executeUpdate("INSERT INTO PERSON VALUES(3, NULL)");
+    }
+  }
+
+  @AfterEach
+  public void after() throws SQLException {
+    con.close();
+  }
+
+  @Test
+  public void test00() throws Exception {
+    Template template = Template.fromString(
+        "<ul>~%%begin:persons%<li>~%id%: ~%html:fullName%</li>~%%end:persons%</ul>");
+    AccessorRegistry accessors = AccessorRegistry.configure()
+        .setDefaultNameMapper(CamelCaseToSnakeUpperCase.camelCaseToSnakeUpperCase())
+        .freeze();
+    try (Statement stmt = con.createStatement()) {
+      ResultSet rs = stmt.executeQuery("SELECT * FROM PERSON ORDER BY ID");
+      RenderSession session = template.newRenderSession(accessors);
+      session.populate("persons", rs);
+      String expected = "<ul><li>1: John &amp; Mary</li><li>2: Mark</li><li>3: </li></ul>";
+      assertEquals(expected, session.render());
+    }
+  }
+
+  @Test
+  public void test01() throws Exception {
+    Template template = Template.fromString(
+        "~%%begin:persons%~%%begin:names%~%name%~%%end:names%~%%end:persons%");
+    try (Statement stmt = con.createStatement()) {
+      ResultSet rs = stmt.executeQuery("SELECT * FROM PERSON");
+      RenderSession session = template.newRenderSession();
+      assertThrows(RenderException.class, () -> session.populate("persons", rs));
+    }
+  }
+
+}
@@ -0,0 +1,62 @@
+package org.klojang.template;
+
+import java.io.ByteArrayOutputStream;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import nl.naturalis.common.IOMethods;
+import org.klojang.template.RenderSessionTest02.Department;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.klojang.template.RenderSessionTest02.getEmployees;
+import static org.klojang.template.RenderSessionTest02.getManager;
+
+public class TemplateBinderTest {
+
+  @Test
+  public void render00() throws ParseException, RenderException {
+    Department department = new Department("HR", getManager(), getEmployees());
+    Template template = Template.fromResource(RenderSessionTest02.class,
+        "RenderSessionTest02_a.txt");
+    TemplateBinder<Department> binder = template.bind(Department.class);
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    binder.render(department, out);
+    String expected = IOMethods.getContents(RenderSessionTest02.class,
+        "RenderSessionTest02.expected.txt");
+    assertEquals(expected, out.toString());
+    // Once more, now that the binders for the nested templates have been resolved
+    StringBuilder sb = new StringBuilder();
+    binder.render(department, sb);
+    assertEquals(expected, sb.toString());
+  }
+
+  @Test
+  public void render01() throws ParseException, RenderException {
+    // Source type without getters: falls back to the accessor for maps
+    Template template = Template.fromString(
+        "~%title%:~%%begin:rows%[~%name%]~%%end:rows%~%%begin:none%x~%%end:none%");
+    @SuppressWarnings("rawtypes")
+    TemplateBinder<Map> binder = template.bind(Map.class);
+    StringBuilder sb = new StringBuilder();
+    binder.render(Map.of("title", "Names",
+        "rows", List.of(Map.of("name", "John"), Map.of("name", "Mark")),
+        "none", List.of()), sb);
+    assertEquals("Names:[John][Mark]", sb.toString());
+    assertThrows(RenderException.class,
+        () -> binder.render(Map.of("rows", new Object[] {null}), new StringBuilder()));
+  }
+
+  @Test
+  public void render02() throws ParseException, RenderException {
+    Template template = Template.fromString("~%%begin:rows%[~%name%]~%%end:rows%");
+    @SuppressWarnings("rawtypes")
+    TemplateBinder<Map> binder = template.bind(Map.class);
+    Map<String, Object> data = Map.of("rows", List.of(Map.of("name", "John")).iterator());
+    assertThrows(RenderException.class, () -> binder.render(data, new StringBuilder()));
+    Map<String, Object> data2 = Map.of("rows", List.of(Map.of("name", "John")).stream());
+    assertThrows(RenderException.class, () -> binder.render(data2, new StringBuilder()));
+  }
+
+}
@@ -0,0 +1,79 @@
+package org.klojang.template;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+public class TemplateCacheTest {
+
+  private static final int THREADS = 16;
+
+  @Test // all threads get the same instance, even if they all miss the cache
+  public void get00() throws Exception {
+    Path file = Files.createTempFile("TemplateCacheTest", ".html");
+    try {
+      Files.writeString(file, "<p>~%html:name%</p>", StandardCharsets.UTF_8);
+      String path = file.toString();
+      List<Template> templates = runConcurrently(i -> Template.fromFile(path));
+      for (Template t : templates) {
+        assertSame(templates.get(0), t);
+      }
+      assertSame(templates.get(0), Template.fromFile(path));
+    } finally {
+      Files.deleteIfExists(file);
+    }
+  }
+
+  @Test // variable groups created while parsing concurrently
+  public void varGroups00() throws Exception {
+    List<Template> templates = runConcurrently(
+        i -> Template.fromString("~%concurrent" + i + ":name%~%shared:name%"));
+    assertEquals(THREADS, templates.size());
+    for (int i = 0; i < THREADS; ++i) {
+      assertNotNull(VarGroup.getVarGroups().get("concurrent" + i));
+    }
+    assertSame(VarGroup.withName("shared"), VarGroup.getVarGroups().get("shared"));
+  }
+
+  private interface Task {
+    Template run(int thread) throws Exception;
+  }
+
+  private static List<Template> runConcurrently(Task task) throws Exception {
+    ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+    try {
+      CountDownLatch start = new CountDownLatch(1);
+      List<Future<Template>> futures = new ArrayList<>(THREADS);
+      for (int i = 0; i < THREADS; ++i) {
+        int thread = i;
+        Callable<Template> c = () -> {
+          start.await();
+          return task.run(thread);
+        };
+        futures.add(executor.submit(c));
+      }
+      start.countDown();
+      List<Template> templates = new ArrayList<>(THREADS);
+      for (Future<Template> f : futures) {
+        templates.add(f.get());
+      }
+      return templates;
+    } finally {
+      executor.shutdown();
+    }
+  }
+
+}
@@ -1,14 +1,18 @@
 package org.klojang.template;
 
+import java.io.ByteArrayOutputStream;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 import org.junit.jupiter.api.Test;
 import nl.naturalis.common.collection.IntList;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static nl.naturalis.common.StringMethods.append;
 
 public class TemplateTest {
@@ -147,4 +151,102 @@ public class TemplateTest {
     assertEquals(pkg0, pkg1);
   }
 
+  @Test
+  public void renderFragment00() throws ParseException, RenderException {
+    String src = "<table>~%%begin:table%<caption>~%caption%</caption>"
+        + "~%%begin:row%<tr><td>~%name%</td></tr>~%%end:row%~%%end:table%</table>";
+    Template t0 = Template.fromString(src);
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    t0.renderFragment("table.row", List.of(Map.of("name", "John"), Map.of("name", "Mark")), out);
+    assertEquals("<tr><td>John</td></tr><tr><td>Mark</td></tr>", out.toString());
+    out = new ByteArrayOutputStream();
+    t0.renderFragment("table.row", Map.of("name", "Anna"), out);
+    assertEquals("<tr><td>Anna</td></tr>", out.toString());
+  }
+
+  @Test
+  public void renderFragment01() throws ParseException, RenderException {
+    Template t0 = Template.fromString("<ul>~%%begin:rows%<li>~%name%</li>~%%end:rows%</ul>");
+    FragmentCache cache = FragmentCache.configure()
+        .register(obj -> ((Map<?, ?>) obj).get("id"), t0, "rows")
+        .freeze();
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    t0.renderFragment("rows",
+        Map.of("id", 1, "name", "John"),
+        out,
+        AccessorRegistry.STANDARD_ACCESSORS,
+        StringifierRegistry.STANDARD_STRINGIFIERS,
+        cache);
+    assertEquals("<li>John</li>", out.toString());
+    // The full page picks up the fragment rendered by renderFragment
+    RenderSession session = t0.newRenderSession(AccessorRegistry.STANDARD_ACCESSORS,
+        StringifierRegistry.STANDARD_STRINGIFIERS,
+        cache);
+    session.populate("rows", List.of(Map.of("id", 1, "name", "Paul")));
+    assertEquals("<ul><li>John</li></ul>", session.render());
+  }
+
+  @Test
+  public void slot00() throws ParseException, RenderException {
+    Template t0 = Template.fromString(
+        "<h1>~%title%</h1><ul>~%%begin:rows%<li>~%name%</li>~%%end:rows%</ul>~%title%");
+    VarSlot title = t0.slot("title");
+    NestedSlot rows = t0.nestedSlot("rows");
+    assertEquals("title", title.getName());
+    assertEquals(t0.getNestedTemplate("rows"), rows.getNestedTemplate());
+    RenderSession session = t0.newRenderSession();
+    session.set(title, "Names").populate(rows, List.of(Map.of("name", "John")));
+    assertTrue(session.isFullyPopulated());
+    assertThrows(RenderException.class, () -> session.set(title, "Other"));
+    assertEquals("<h1>Names</h1><ul><li>John</li></ul>Names", session.render());
+  }
+
+  @Test
+  public void slot01() throws ParseException, RenderException {
+    Template t0 = Template.fromString("~%a%~%%begin:rows%~%a%~%%end:rows%");
+    Template t1 = Template.fromString("~%a%");
+    assertThrows(IllegalArgumentException.class, () -> t0.slot("b"));
+    assertThrows(IllegalArgumentException.class, () -> t0.nestedSlot("a"));
+    RenderSession session = t0.newRenderSession();
+    assertThrows(RenderException.class, () -> session.set(t1.slot("a"), 1));
+    assertThrows(RenderException.class,
+        () -> session.set(t0.getNestedTemplate("rows").slot("a"), 1));
+    session.set(t0.slot("a"), List.of(1, 2), null, "[", ",", "]");
+    session.unset("a").set(t0.slot("a"), 3);
+    assertEquals("3", session.render());
+  }
+
+  @Test // included templates share their text, but not their parent
+  public void include00() throws ParseException {
+    String src = "<div>~%%include:top:TemplateTest.departments.html%</div>"
+        + "<div>~%%include:bottom:TemplateTest.departments.html%</div>";
+    Template t0 = Template.fromString(getClass(), src);
+    Template top = t0.getNestedTemplate("top");
+    Template bottom = t0.getNestedTemplate("bottom");
+    Template cached = Template.fromResource(getClass(), "TemplateTest.departments.html");
+    assertTrue(top != bottom);
+    assertTrue(top.getParent() == t0);
+    assertTrue(bottom.getParent() == t0);
+    assertTrue(cached.getParent() == null);
+    assertTrue(top.getParts().get(0) == cached.getParts().get(0));
+    assertTrue(bottom.getParts().get(0) == cached.getParts().get(0));
+    assertEquals("top.employees", TemplateUtils.getFQName(top.getNestedTemplate("employees")));
+    assertEquals("bottom.employees",
+        TemplateUtils.getFQName(bottom.getNestedTemplate("employees")));
+    assertEquals(Template.ROOT_TEMPLATE_NAME, cached.getName());
+    assertTrue(bottom.getNestedTemplate("employees").getParent() == bottom);
+  }
+
+  @Test // repeat counts beyond the cached ones
+  public void repeatedText00() throws ParseException, RenderException {
+    Template template = Template.fromString("<ul>~%%begin:foo%<li/>~%%end:foo%</ul>");
+    for (int repeats : new int[] {0, 1, 8, 9, 100}) {
+      String expected = "<ul>" + "<li/>".repeat(repeats) + "</ul>";
+      assertEquals(expected, template.newRenderSession().show(repeats, "foo").render());
+      ByteArrayOutputStream out = new ByteArrayOutputStream();
+      template.newRenderSession().show(repeats, "foo").render(out);
+      assertEquals(expected, out.toString());
+    }
+  }
+
 }
@@ -0,0 +1,61 @@
+package org.klojang.template;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.klojang.SysProp.DEDUPLICATE_TEXT;
+
+public class TextBlockTest {
+
+  private static final String NAV = "<nav><ul><li><a href='/'>Home</a></li>"
+      + "<li><a href='/about'>About</a></li></ul></nav>\n";
+
+  @AfterEach
+  public void after() {
+    System.clearProperty(DEDUPLICATE_TEXT.property());
+  }
+
+  @Test
+  public void pooled00() throws ParseException {
+    Template t0 = Template.fromString(NAV + "~%title%");
+    Template t1 = Template.fromString(NAV + "~%name%");
+    assertNotSame(block(t0, 0), block(t1, 0));
+    System.setProperty(DEDUPLICATE_TEXT.property(), "true");
+    t0 = Template.fromString(NAV + "~%title%");
+    t1 = Template.fromString(NAV + "~%name%");
+    assertSame(block(t0, 0), block(t1, 0));
+    assertSame(block(t0, 0).getBytes(), block(t1, 0).getBytes());
+  }
+
+  @Test // short text is never pooled
+  public void pooled01() throws ParseException {
+    System.setProperty(DEDUPLICATE_TEXT.property(), "true");
+    Template t0 = Template.fromString("<h1>~%title%</h1>");
+    Template t1 = Template.fromString("<h1>~%name%</h1>");
+    assertNotSame(block(t0, 0), block(t1, 0));
+  }
+
+  @Test
+  public void render00() throws ParseException, RenderException {
+    System.setProperty(DEDUPLICATE_TEXT.property(), "true");
+    Template t0 = Template.fromString(NAV + "<p>~%title%</p>" + NAV);
+    RenderSession rs = t0.newRenderSession().insert(Map.of("title", "Cafe"));
+    String expected = NAV + "<p>Cafe</p>" + NAV;
+    assertEquals(expected, rs.render());
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    CompiledLayout.compile(t0).render(Map.of("title", "Cafe"), out);
+    assertEquals(expected, out.toString(StandardCharsets.UTF_8));
+  }
+
+  private static TextBlock block(Template t, int part) {
+    return ((TextPart) t.getParts().get(part)).getBlock();
+  }
+
+}
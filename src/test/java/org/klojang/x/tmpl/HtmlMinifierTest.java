@@ -0,0 +1,55 @@
+package org.klojang.x.tmpl;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class HtmlMinifierTest {
+
+  @Test
+  public void minify00() {
+    String text = "<html>\n    <body>\n        <p>Hello   <b>World</b></p>\n    </body>\n</html>";
+    String expected = "<html>\n<body>\n<p>Hello <b>World</b></p>\n</body>\n</html>";
+    assertEquals(expected, new HtmlMinifier().minify(text));
+  }
+
+  @Test
+  public void minify01() {
+    String text = "<div>\n  <!-- A comment -->\n  <!--[if IE]><p>IE</p><![endif]-->\n</div>";
+    String expected = "<div>\n<!--[if IE]><p>IE</p><![endif]-->\n</div>";
+    assertEquals(expected, new HtmlMinifier().minify(text));
+  }
+
+  @Test
+  public void minify02() {
+    String text = "<div>\n  <PRE class=\"x\">  a\n    b</pre>\n  <script>\n  var x;\n</script>\n</div>";
+    String expected = "<div>\n<PRE class=\"x\">  a\n    b</pre>\n<script>\n  var x;\n</script>\n</div>";
+    assertEquals(expected, new HtmlMinifier().minify(text));
+  }
+
+  @Test
+  public void minify03() {
+    // Text parts of <pre>~%foo%   </pre>   <p>
+    HtmlMinifier minifier = new HtmlMinifier();
+    assertEquals("<pre>\n  ", minifier.minify("<pre>\n  "));
+    assertEquals("   </pre> <p>", minifier.minify("   </pre>   <p>"));
+    assertEquals("<preface> <p>", minifier.minify("<preface>   <p>"));
+  }
+
+  @Test
+  public void minify04() {
+    String text = "<input  type=\"text\"\n   value=\"a   b\" title='a\n b'>  <p>a   b</p>";
+    String expected = "<input type=\"text\"\nvalue=\"a   b\" title='a\n b'> <p>a b</p>";
+    assertEquals(expected, new HtmlMinifier().minify(text));
+  }
+
+  @Test
+  public void minify05() {
+    // Text parts of <a title="x   ~%foo%   y"   href="#">a   b</a>
+    HtmlMinifier minifier = new HtmlMinifier();
+    assertEquals("<a title=\"x   ", minifier.minify("<a title=\"x   "));
+    assertEquals("   y\" href=\"#\">a b</a>", minifier.minify("   y\"   href=\"#\">a   b</a>"));
+    assertEquals("if (a < b) ", minifier.minify("if (a < b)   "));
+  }
+
+}